@@ -0,0 +1,60 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MatchingResultSet#combine} of search results, that intersects word identifiers,
+ * with combine of the same result sets kept as maps of words.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class CombineBenchmark {
+    @Param({"e,S", "a,t", "e,Xml", "Map,E"})
+    private String literals;
+
+    private PatternCommandTokenizer.Command command;
+    private MatchingResultSet<String> left;
+    private MatchingResultSet<String> right;
+    private MatchingResultSet<String> mapLeft;
+    private MatchingResultSet<String> mapRight;
+
+    @Setup
+    public void setUp() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(Corpus.classNames()).freeze();
+        String[] parts = literals.split(",");
+
+        command = new ExpressionAnyPatternCommand(parts[1]);
+        left = tree.search(parts[0]);
+        right = tree.search(parts[1]);
+        mapLeft = new MatchingResultSet<String>().addAll(left);
+        mapRight = new MatchingResultSet<String>().addAll(right);
+    }
+
+    @Benchmark
+    public Object indexed() {
+        return command.execute(left, right);
+    }
+
+    @Benchmark
+    public Object map() {
+        return command.execute(mapLeft, mapRight);
+    }
+}
@@ -0,0 +1,57 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares matching of source pattern, that is tokenized on every call, with matching of compiled one.
+ * Small word set makes tokenization cost visible.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompiledPatternBenchmark {
+    @Param({"Abc", "*AD", "AbC*d "})
+    private String pattern;
+
+    private PatternMatcher<String> matcher;
+    private CompiledPattern compiledPattern;
+
+    @Setup
+    public void setUp() {
+        matcher = new PatternMatcher<>(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef", "AbCxd", "AbcCdef"));
+        compiledPattern = matcher.compile(pattern);
+    }
+
+    @Benchmark
+    public Object compile() {
+        return matcher.compile(pattern);
+    }
+
+    @Benchmark
+    public Object match() {
+        return matcher.match(pattern);
+    }
+
+    @Benchmark
+    public Object matchCompiled() {
+        return matcher.match(compiledPattern);
+    }
+}
@@ -0,0 +1,74 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of single {@link PatternMatcher} instance shared between different number of threads.
+ *
+ * @author vlitvinenko
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ConcurrentMatchBenchmark {
+    private static final List<String> PATTERNS = List.of("Abstract", "*Map", "HM", "*Buf*In", "Xyz", "e ");
+
+    @State(Scope.Benchmark)
+    public static class SharedMatcher {
+        private PatternMatcher<String> matcher;
+
+        @Setup
+        public void setUp() {
+            matcher = new PatternMatcher<>(Corpus.classNames());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Patterns {
+        private int next;
+
+        String next() {
+            next = (next + 1) % PATTERNS.size();
+            return PATTERNS.get(next);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object match1(SharedMatcher shared, Patterns patterns) {
+        return shared.matcher.match(patterns.next());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object match2(SharedMatcher shared, Patterns patterns) {
+        return shared.matcher.match(patterns.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object match4(SharedMatcher shared, Patterns patterns) {
+        return shared.matcher.match(patterns.next());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object match8(SharedMatcher shared, Patterns patterns) {
+        return shared.matcher.match(patterns.next());
+    }
+}
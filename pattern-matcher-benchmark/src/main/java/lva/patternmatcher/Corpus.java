@@ -0,0 +1,41 @@
+package lva.patternmatcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Provides realistic word collections for benchmarks.
+ *
+ * @author vlitvinenko
+ */
+final class Corpus {
+    private Corpus() {}
+
+    /**
+     * Returns simple names of all classes (including nested ones) of the running JDK.
+     *
+     * @return list of class names
+     */
+    static List<String> classNames() {
+        FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        try (Stream<Path> paths = Files.walk(jrt.getPath("/modules"))) {
+            return paths
+                .map(path -> path.getFileName() != null ? path.getFileName().toString() : "")
+                .filter(name -> name.endsWith(".class") && !name.equals("module-info.class"))
+                .map(name -> name.substring(name.lastIndexOf('$') + 1, name.length() - ".class".length()))
+                .filter(name -> !name.isEmpty() && !Character.isDigit(name.charAt(0)))
+                .collect(toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
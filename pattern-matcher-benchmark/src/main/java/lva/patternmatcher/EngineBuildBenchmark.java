@@ -0,0 +1,57 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures index build time over JDK class names for different search engines.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class EngineBuildBenchmark {
+    @Param({"tree", "frozen", "array", "fm", "ngram", "scan"})
+    private String engine;
+
+    private List<String> words;
+
+    @Setup
+    public void setUp() {
+        words = Corpus.classNames();
+    }
+
+    @Benchmark
+    public Object build() {
+        switch (engine) {
+            case "frozen":
+                return new SuffixTree<>(words).freeze();
+            case "array":
+                return new SuffixArray<>(words);
+            case "fm":
+                return SuffixArray.compress(words);
+            case "ngram":
+                return new NGramIndex<>(words);
+            case "scan":
+                return new LinearScan<>(words);
+            default:
+                return new SuffixTree<>(words);
+        }
+    }
+}
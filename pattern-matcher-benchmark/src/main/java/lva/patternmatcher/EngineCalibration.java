@@ -0,0 +1,131 @@
+package lva.patternmatcher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Calibrates thresholds of {@link EngineSelector#calibrated()} over JDK class names and prints them
+ * in format of {@link CalibratedEngineSelector#THRESHOLDS_RESOURCE}, or writes them into file given by argument.
+ * <ul>
+ *     <li>retained heap per symbol of each engine, FM-index transform excluded as it depends on alphabet</li>
+ *     <li>peak heap per symbol of FM-index build, that materializes suffix array before compression</li>
+ *     <li>max number of symbols which matcher without index answers within {@link #LINEAR_SCAN_BUDGET_NANOS},
+ *     by the slowest of {@link #PATTERNS}, the whole pattern is matched by a single scan of words</li>
+ * </ul>
+ *
+ * @author vlitvinenko
+ */
+public final class EngineCalibration {
+    private static final long LINEAR_SCAN_BUDGET_NANOS = 200_000;
+    private static final double HEAP_FRACTION = 0.25;
+    private static final double BUILD_HEAP_FRACTION = 0.75;
+    private static final List<String> PATTERNS = List.of("Abstract", "*Map", "AbC*d ", "*e*Map", "*Xyz", "*e");
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 200;
+
+    private EngineCalibration() {}
+
+    public static void main(String[] args) throws IOException {
+        List<String> words = Corpus.classNames();
+        CorpusStatistics statistics = CorpusStatistics.of(words);
+        double chars = statistics.getCharCount();
+
+        double suffixTree = retainedHeap(words, shard -> new SuffixTree<>(shard).freeze()) / chars;
+        double suffixArray = retainedHeap(words, SuffixArray::new) / chars;
+        double fmIndex = retainedHeap(words, shard -> SuffixArray.compress(shard)) / chars -
+            FMIndex.levelCount(statistics.getAlphabetSize()) * CalibratedEngineSelector.TRANSFORM_BYTES_PER_LEVEL;
+
+        double fmIndexBuild = peakHeap(words, shard -> SuffixArray.compress(shard)) / chars;
+
+        PatternMatcher<String> matcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.LINEAR_SCAN)
+            .build();
+        long scanNanos = 0;
+        for (String pattern : PATTERNS) {
+            scanNanos = Math.max(scanNanos, scanNanos(matcher, matcher.compile(pattern)));
+        }
+        double scanNanosPerChar = scanNanos / chars;
+
+        String thresholds = String.format(Locale.ROOT,
+            "# generated by %s over %d words, %d chars, %d symbols%n" +
+            "# linear scan takes %.2f ns per char%n" +
+            "linearScan.maxChars=%d%n" +
+            "suffixTree.bytesPerChar=%.1f%n" +
+            "suffixArray.bytesPerChar=%.1f%n" +
+            "fmIndex.bytesPerChar=%.1f%n" +
+            "fmIndex.buildBytesPerChar=%.1f%n" +
+            "heapFraction=%s%n" +
+            "buildHeapFraction=%s%n",
+            EngineCalibration.class.getSimpleName(), statistics.getWordCount(), statistics.getCharCount(),
+            statistics.getAlphabetSize(), scanNanosPerChar, (long) (LINEAR_SCAN_BUDGET_NANOS / scanNanosPerChar),
+            suffixTree, suffixArray, Math.max(0, fmIndex), fmIndexBuild, HEAP_FRACTION, BUILD_HEAP_FRACTION);
+
+        if (args.length == 0) {
+            System.out.print(thresholds);
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(args[0]))) {
+            writer.write(thresholds);
+        }
+    }
+
+    private static long scanNanos(PatternMatcher<String> matcher, CompiledPattern pattern) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            Reference.reachabilityFence(matcher.match(pattern));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Reference.reachabilityFence(matcher.match(pattern));
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static long retainedHeap(List<String> words, Function<List<String>, Searchable<String>> factory) {
+        long before = usedHeap();
+        Searchable<String> index = factory.apply(words);
+        long retained = usedHeap() - before;
+        Reference.reachabilityFence(index);
+        return retained;
+    }
+
+    /**
+     * Peaks of heap pools are summed, so garbage of the build is counted as well, that overestimates the peak.
+     */
+    private static long peakHeap(List<String> words, Function<List<String>, Searchable<String>> factory) {
+        long before = usedHeap();
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                pools.add(pool);
+            }
+        }
+
+        Searchable<String> index = factory.apply(words);
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        Reference.reachabilityFence(index);
+        return peak - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,54 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching of capital letter patterns over JDK class names with and without hump index.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class HumpIndexBenchmark {
+    @Param({"NPE", "ACHM", "BIS", "AbLi", "S"})
+    private String pattern;
+
+    private PatternMatcher<String> matcher;
+    private PatternMatcher<String> humpMatcher;
+    private CompiledPattern compiledPattern;
+
+    @Setup
+    public void setUp() {
+        matcher = new PatternMatcher<>(Corpus.classNames());
+        humpMatcher = new PatternMatcher.Builder<>(Corpus.classNames())
+            .setHumpIndexEnabled(true)
+            .build();
+        compiledPattern = matcher.compile(pattern);
+    }
+
+    @Benchmark
+    public Object suffixTree() {
+        return matcher.match(compiledPattern);
+    }
+
+    @Benchmark
+    public Object humpIndex() {
+        return humpMatcher.match(compiledPattern);
+    }
+}
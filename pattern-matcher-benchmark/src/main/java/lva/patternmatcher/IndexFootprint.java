@@ -0,0 +1,80 @@
+package lva.patternmatcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reports heap retained by indexes built over JDK class names.
+ * Run with {@code java -cp benchmarks.jar lva.patternmatcher.IndexFootprint}.
+ *
+ * @author vlitvinenko
+ */
+public final class IndexFootprint {
+    private static final Map<String, Function<List<String>, Searchable<String>>> INDEXES = new LinkedHashMap<>();
+
+    static {
+        INDEXES.put("suffix tree", SuffixTree::new);
+        INDEXES.put("frozen suffix tree", words -> new SuffixTree<>(words).freeze());
+        INDEXES.put("suffix array", SuffixArray::new);
+        INDEXES.put("fm index", words -> SuffixArray.compress(words));
+        INDEXES.put("ngram index", NGramIndex::new);
+        INDEXES.put("mapped index file", IndexFootprint::mapped);
+        INDEXES.put("mapped fm index file", IndexFootprint::mappedFMIndex);
+    }
+
+    private IndexFootprint() {}
+
+    public static void main(String[] args) {
+        List<String> words = Corpus.classNames();
+        long chars = words.stream().mapToLong(String::length).sum();
+        System.out.printf("%d words, %d chars%n", words.size(), chars);
+
+        INDEXES.forEach((name, factory) -> {
+            long before = usedHeap();
+            Searchable<String> index = factory.apply(words);
+            long retained = usedHeap() - before;
+
+            System.out.printf("%-20s: %.1f MB retained, %.1f bytes per char%n",
+                name, retained / 1024.0 / 1024.0, (double) retained / chars);
+
+            Reference.reachabilityFence(index);
+        });
+    }
+
+    private static Searchable<String> mapped(List<String> words) {
+        try {
+            Path path = Files.createTempFile("index", ".pmix");
+            path.toFile().deleteOnExit();
+            IndexFile.save(new SuffixTree<>(words).freeze(), path);
+            return IndexFile.open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Searchable<String> mappedFMIndex(List<String> words) {
+        try {
+            Path path = Files.createTempFile("index", ".pmfm");
+            path.toFile().deleteOnExit();
+            IndexFile.save(SuffixArray.compress(words), path);
+            return IndexFile.openFMIndex(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,60 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures average keystroke latency of typing pattern char by char,
+ * with matching of every prefix from scratch and with incremental session.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class MatchSessionBenchmark {
+    private static final int KEYSTROKES = 12;
+
+    @Param({"ConcurrentHaMa", "AbstractListIt"})
+    private String pattern;
+
+    private PatternMatcher<String> matcher;
+
+    @Setup
+    public void setUp() {
+        matcher = new PatternMatcher<>(Corpus.classNames());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYSTROKES)
+    public void match(Blackhole blackhole) {
+        for (int i = 1; i <= KEYSTROKES; i++) {
+            blackhole.consume(matcher.match(pattern.subSequence(0, i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYSTROKES)
+    public void refine(Blackhole blackhole) {
+        MatchSession<String> session = matcher.newSession();
+        for (int i = 1; i <= KEYSTROKES; i++) {
+            blackhole.consume(session.refine(pattern.subSequence(0, i)));
+        }
+    }
+}
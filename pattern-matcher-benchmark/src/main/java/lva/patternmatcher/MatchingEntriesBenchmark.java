@@ -0,0 +1,70 @@
+package lva.patternmatcher;
+
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time and allocations of {@link MatchingEntries} operations used by pattern commands.
+ * Run with {@code -prof gc} to see allocation rate.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MatchingEntriesBenchmark {
+    private static final String WORD = "AbstractConcurrentHashMapEntrySetIteratorSpliteratorFactory";
+
+    private final PatternCommandTokenizer.Command expressionAny = new ExpressionAnyPatternCommand("t");
+    private final PatternCommandTokenizer.Command expressionStrict = new ExpressionStrictPatternCommand("S");
+
+    private MatchingEntries left;
+    private MatchingEntries occurrences;
+
+    @Setup
+    public void setUp() {
+        left = new MatchingEntries().add(0, 1).add(8, 9);
+
+        occurrences = new MatchingEntries();
+        for (int i = 0; i < WORD.length(); i++) {
+            char c = WORD.charAt(i);
+            if (c == 't' || c == 'S') {
+                occurrences.add(i, i + 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object expressionAny() {
+        return expressionAny.execute(WORD, left, occurrences);
+    }
+
+    @Benchmark
+    public Object expressionStrict() {
+        return expressionStrict.execute(WORD, left, occurrences);
+    }
+
+    @Benchmark
+    public Object splitLeft() {
+        return occurrences.splitLeft(1);
+    }
+
+    @Benchmark
+    public Object splitRight() {
+        return occurrences.splitRight(-1);
+    }
+}
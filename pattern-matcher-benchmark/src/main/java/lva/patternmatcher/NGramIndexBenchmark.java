@@ -0,0 +1,42 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures incremental update of {@link NGramIndex} over JDK class names, i.e. adding and removing one word,
+ * that would take rebuilding of the whole suffix tree.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class NGramIndexBenchmark {
+    private static final String WORD = "AbstractConcurrentPatternMatcherFactory";
+
+    private NGramIndex<String> index;
+
+    @Setup
+    public void setUp() {
+        index = new NGramIndex<>(Corpus.classNames());
+    }
+
+    @Benchmark
+    public Object addAndRemove() {
+        return index.add(WORD) & index.remove(WORD);
+    }
+}
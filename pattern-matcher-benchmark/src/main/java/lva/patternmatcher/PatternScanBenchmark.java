@@ -0,0 +1,85 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching over JDK class names by scan of words with automaton of the whole pattern,
+ * compared to suffix tree and to scan of words for every literal.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class PatternScanBenchmark {
+    @Param({"Abc", "*AD", "AbC*d ", "*e*Map"})
+    private String pattern;
+
+    private List<String> words;
+    private PatternMatcher<String> treeMatcher;
+    private PatternMatcher<String> scanMatcher;
+    private PatternMatcher<String> parallelScanMatcher;
+    private CompiledPattern compiledPattern;
+
+    @Setup
+    public void setUp() {
+        words = Corpus.classNames();
+        treeMatcher = new PatternMatcher<>(words);
+        scanMatcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.LINEAR_SCAN)
+            .build();
+        parallelScanMatcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.LINEAR_SCAN)
+            .setParallelism(4)
+            .build();
+        compiledPattern = treeMatcher.compile(pattern);
+    }
+
+    @Benchmark
+    public Object suffixTree() {
+        return treeMatcher.match(compiledPattern);
+    }
+
+    @Benchmark
+    public Object literalScan() {
+        MatchingResultSet<String> resultSet = new MatchingResultSet<>();
+        for (PatternCommandTokenizer.Command command : compiledPattern.getCommands()) {
+            resultSet = scanMatcher.execute(command, resultSet);
+        }
+        return resultSet;
+    }
+
+    @Benchmark
+    public Object automatonScan() {
+        return scanMatcher.match(compiledPattern);
+    }
+
+    @Benchmark
+    public Object parallelAutomatonScan() {
+        return parallelScanMatcher.match(compiledPattern);
+    }
+
+    @Benchmark
+    public Object buildAndScan() {
+        return new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.LINEAR_SCAN)
+            .build()
+            .match(compiledPattern);
+    }
+}
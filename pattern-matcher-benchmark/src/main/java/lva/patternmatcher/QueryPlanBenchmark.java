@@ -0,0 +1,81 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares both execution strategies of {@link QueryPlan} with the planned one.
+ * Used to calibrate {@link QueryPlan#VERIFICATION_COST}, that is the median over patterns of ratio
+ * of candidates time per verified word and command to sequential time per estimated occurrence,
+ * estimates of literals are given by {@link PatternMatcher#explain(CharSequence)}.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class QueryPlanBenchmark {
+    @Param({"*a*Xml", "*e*Buffer", "*e*S", "A*Map", "*Map*E", "Abstract*List", "*Con*Ha*Ma"})
+    private String pattern;
+
+    private Searchable<String> searchable;
+    private PatternMatcher<String> matcher;
+    private CompiledPattern compiledPattern;
+    private CharSequence rarestLiteral;
+
+    @Setup
+    public void setUp() {
+        searchable = new SuffixTree<>(Corpus.classNames()).freeze();
+        matcher = new PatternMatcher<>(PatternCompiler::new, searchable);
+        compiledPattern = matcher.compile(pattern);
+
+        QueryPlan plan = matcher.explain(pattern);
+        int rarestStep = 0;
+        for (int i = 0; i < plan.getSteps().size(); i++) {
+            if (plan.getSteps().get(i).getEstimate() < plan.getSteps().get(rarestStep).getEstimate()) {
+                rarestStep = i;
+            }
+        }
+        rarestLiteral = compiledPattern.getCommands().get(rarestStep).getPattern();
+    }
+
+    @Benchmark
+    public Object planned() {
+        return matcher.match(compiledPattern);
+    }
+
+    @Benchmark
+    public Object sequential() {
+        MatchingResultSet<String> resultSet = new MatchingResultSet<>();
+        for (PatternCommandTokenizer.Command command : compiledPattern.getCommands()) {
+            resultSet = matcher.execute(command, resultSet);
+        }
+        return resultSet;
+    }
+
+    @Benchmark
+    public Object candidates() {
+        MatchingResultSet<String> resultSet = new MatchingResultSet<>();
+        Iterator<String> candidates = searchable.candidates(rarestLiteral);
+        while (candidates.hasNext()) {
+            String word = candidates.next();
+            compiledPattern.match(word).ifPresent(entries -> resultSet.put(word, entries));
+        }
+        return resultSet;
+    }
+}
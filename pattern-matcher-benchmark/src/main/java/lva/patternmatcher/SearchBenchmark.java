@@ -0,0 +1,60 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures substring search latency over JDK class names for different index representations.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SearchBenchmark {
+    @Param({"tree", "frozen", "array", "fm", "ngram", "scan"})
+    private String index;
+
+    @Param({"Abstract", "Map", "Xyz", "e"})
+    private String pattern;
+
+    private Searchable<String> searchable;
+
+    @Setup
+    public void setUp() {
+        if ("ngram".equals(index)) {
+            searchable = new NGramIndex<>(Corpus.classNames());
+            return;
+        }
+        if ("scan".equals(index)) {
+            searchable = new LinearScan<>(Corpus.classNames());
+            return;
+        }
+        if ("array".equals(index) || "fm".equals(index)) {
+            SuffixArray<String> array = new SuffixArray<>(Corpus.classNames());
+            searchable = "fm".equals(index) ? array.compress() : array;
+            return;
+        }
+        SuffixTree<String> tree = new SuffixTree<>(Corpus.classNames());
+        searchable = "frozen".equals(index) ? tree.freeze() : tree;
+    }
+
+    @Benchmark
+    public Object search() {
+        return searchable.search(pattern);
+    }
+}
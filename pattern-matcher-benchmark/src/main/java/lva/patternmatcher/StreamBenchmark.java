@@ -0,0 +1,53 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Compares the first page of lazy matching with full matching.
+ * Run with {@code -prof gc} to compare allocation rate as well.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class StreamBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"A*", "*e*S", "*Map*E", "AbstractList"})
+    private String pattern;
+
+    private PatternMatcher<String> matcher;
+
+    @Setup
+    public void setUp() {
+        matcher = new PatternMatcher<>(Corpus.classNames());
+    }
+
+    @Benchmark
+    public Object match() {
+        return matcher.match(pattern);
+    }
+
+    @Benchmark
+    public Object streamPage() {
+        return matcher.stream(pattern).limit(PAGE_SIZE).collect(toList());
+    }
+}
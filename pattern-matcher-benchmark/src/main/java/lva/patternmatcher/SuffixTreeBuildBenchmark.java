@@ -0,0 +1,59 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SuffixTree} build time for the same total amount of characters split into words of different length.
+ * Linear construction keeps the time flat while the word length grows, quadratic one grows along with it.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SuffixTreeBuildBenchmark {
+    private static final int TOTAL_CHARS = 1 << 18;
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    @Param({"8", "32", "128", "512", "2048"})
+    private int wordLength;
+
+    private List<String> words;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        words = new ArrayList<>();
+
+        for (int i = 0; i < TOTAL_CHARS / wordLength; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0; j < wordLength; j++) {
+                word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            words.add(word.toString());
+        }
+    }
+
+    @Benchmark
+    public Object build() {
+        return new SuffixTree<>(words);
+    }
+}
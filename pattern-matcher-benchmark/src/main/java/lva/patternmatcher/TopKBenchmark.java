@@ -0,0 +1,60 @@
+package lva.patternmatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Compares ranked matching of top words with full matching followed by sort.
+ *
+ * @author vlitvinenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TopKBenchmark {
+    private static final int K = 20;
+
+    @Param({"A*", "*e", "*Map", "AbstractList"})
+    private String pattern;
+
+    private PatternMatcher<String> matcher;
+    private Scorer<String> scorer;
+
+    @Setup
+    public void setUp() {
+        matcher = new PatternMatcher<>(Corpus.classNames());
+        scorer = Scorer.relevance();
+    }
+
+    @Benchmark
+    public Object matchAndSort() {
+        return matcher.match(pattern).getResultSet().entrySet().stream()
+            .map(entry -> new RankedResult<>(entry.getKey(), entry.getValue(),
+                scorer.score(entry.getKey(), entry.getValue())))
+            .sorted(Comparator.comparingDouble(RankedResult<String>::getScore).reversed())
+            .limit(K)
+            .collect(toList());
+    }
+
+    @Benchmark
+    public Object matchTopK() {
+        return matcher.match(pattern, K, scorer);
+    }
+}
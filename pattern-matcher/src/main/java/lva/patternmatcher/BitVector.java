@@ -0,0 +1,98 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.LongBuffer;
+
+/**
+ * Represents immutable bit vector with constant time rank, i.e. number of set bits before position.
+ * <p>
+ * Ranks are kept for every block of {@link #BLOCK_WORDS} words as a pair of longs: number of set bits
+ * before the block, and 9-bit numbers of set bits before each following word of the block relative
+ * to the block beginning. So rank takes two counts and popcount of a single word, while counts take
+ * a quarter of the bits size.
+ * Arrays are accessed through buffers, so they might reside either in heap or in memory-mapped index file.
+ *
+ * @author vlitvinenko
+ */
+final class BitVector {
+    static final int BLOCK_WORDS = 8;
+
+    private static final int RELATIVE_BITS = 9;
+    private static final long RELATIVE_MASK = (1L << RELATIVE_BITS) - 1;
+
+    final LongBuffer bits;
+    /**
+     * pairs of absolute and relative ranks of each block, followed by total number of set bits
+     */
+    final LongBuffer ranks;
+
+    BitVector(@NonNull LongBuffer bits, @NonNull LongBuffer ranks) {
+        this.bits = bits;
+        this.ranks = ranks;
+    }
+
+    /**
+     * Creates bit vector and counts its ranks.
+     *
+     * @param bits - bits, bit {@code i} is bit {@code i % 64} of word {@code i / 64}
+     * @return bit vector
+     */
+    static BitVector of(@NonNull long[] bits) {
+        long[] ranks = new long[rankCount(bits.length)];
+        long rank = 0;
+        for (int block = 0; block * BLOCK_WORDS < bits.length; block++) {
+            ranks[2 * block] = rank;
+            long relative = 0;
+            for (int i = 0; i < BLOCK_WORDS; i++) {
+                int word = block * BLOCK_WORDS + i;
+                if (i > 0) {
+                    ranks[2 * block + 1] |= relative << RELATIVE_BITS * (i - 1);
+                }
+                relative += word < bits.length ? Long.bitCount(bits[word]) : 0;
+            }
+            rank += relative;
+        }
+        ranks[ranks.length - 2] = rank;
+        return new BitVector(LongBuffer.wrap(bits), LongBuffer.wrap(ranks));
+    }
+
+    /**
+     * @param wordCount - number of words of bits
+     * @return number of rank counts
+     */
+    static int rankCount(int wordCount) {
+        return 2 * ((wordCount + BLOCK_WORDS - 1) / BLOCK_WORDS + 1);
+    }
+
+    /**
+     * @param size - number of bits
+     * @return number of words to keep bits
+     */
+    static int wordCount(int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    boolean get(int i) {
+        return (bits.get(i >>> 6) & 1L << i) != 0;
+    }
+
+    /**
+     * @param i - position, up to size of vector inclusive
+     * @return number of set bits before position
+     */
+    int rank(int i) {
+        int word = i >>> 6;
+        int block = word / BLOCK_WORDS;
+        long rank = ranks.get(2 * block);
+
+        int index = word % BLOCK_WORDS;
+        if (index > 0) {
+            rank += ranks.get(2 * block + 1) >>> RELATIVE_BITS * (index - 1) & RELATIVE_MASK;
+        }
+        if ((i & 63) != 0) {
+            rank += Long.bitCount(bits.get(word) & (1L << i) - 1);
+        }
+        return (int) rank;
+    }
+}
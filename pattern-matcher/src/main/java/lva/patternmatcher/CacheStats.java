@@ -0,0 +1,42 @@
+package lva.patternmatcher;
+
+import lombok.Data;
+
+/**
+ * Represents snapshot of {@link PatternMatcher} result cache statistics.
+ *
+ * @author vlitvinenko
+ */
+@Data
+public class CacheStats {
+    static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0);
+
+    /**
+     * number of matchings served from cache
+     */
+    private final long hitCount;
+    /**
+     * number of matchings that have been computed
+     */
+    private final long missCount;
+    /**
+     * number of result sets evicted from cache
+     */
+    private final long evictionCount;
+    /**
+     * number of cached result sets
+     */
+    private final int size;
+    /**
+     * total weight of cached result sets, i.e. number of matchings in them
+     */
+    private final long weight;
+
+    /**
+     * @return ratio of matchings served from cache, or 0 if there were no matchings
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,151 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Chooses engine by thresholds calibrated by engine benchmarks, see {@link #THRESHOLDS_RESOURCE}:
+ * <ul>
+ *     <li>words of up to {@code linearScan.maxChars} symbols are scanned without index,
+ *     the scan takes less time than a keystroke</li>
+ *     <li>otherwise words are indexed by the fastest engine which retained heap, estimated by its
+ *     {@code *.bytesPerChar}, fits into {@code heapFraction} of max heap: suffix tree, suffix array and FM-index</li>
+ *     <li>FM-index build materializes suffix array before compression, so FM-index is chosen only if peak heap
+ *     of the build, estimated by {@code fmIndex.buildBytesPerChar}, fits into {@code buildHeapFraction}
+ *     of max heap as well</li>
+ *     <li>words are scanned without index if none of engines fits, that is slow but takes no heap</li>
+ * </ul>
+ * FM-index transform takes a level per bit of symbol code, so its size depends on alphabet of words.
+ *
+ * @author vlitvinenko
+ */
+class CalibratedEngineSelector implements EngineSelector {
+    static final String THRESHOLDS_RESOURCE = "engine-thresholds.properties";
+
+    /**
+     * bytes of FM-index transform per symbol and level, i.e. a bit and its rank counts
+     */
+    static final double TRANSFORM_BYTES_PER_LEVEL = (1 + 2.0 * Long.SIZE / (BitVector.BLOCK_WORDS * Long.SIZE)) / Byte.SIZE;
+
+    private static class Holder {
+        private static final CalibratedEngineSelector INSTANCE =
+            new CalibratedEngineSelector(loadThresholds(), Runtime.getRuntime().maxMemory());
+    }
+
+    private final long linearScanMaxChars;
+    private final double suffixTreeBytesPerChar;
+    private final double suffixArrayBytesPerChar;
+    private final double fmIndexBytesPerChar;
+    private final double fmIndexBuildBytesPerChar;
+    private final long heapBudget;
+    private final long buildHeapBudget;
+
+    /**
+     * @param thresholds - calibrated thresholds
+     * @param maxHeap - max heap, bytes
+     * @throws IllegalArgumentException if thresholds are missing or invalid
+     */
+    CalibratedEngineSelector(@NonNull Properties thresholds, long maxHeap) {
+        linearScanMaxChars = (long) threshold(thresholds, "linearScan.maxChars");
+        suffixTreeBytesPerChar = threshold(thresholds, "suffixTree.bytesPerChar");
+        suffixArrayBytesPerChar = threshold(thresholds, "suffixArray.bytesPerChar");
+        fmIndexBytesPerChar = threshold(thresholds, "fmIndex.bytesPerChar");
+        fmIndexBuildBytesPerChar = threshold(thresholds, "fmIndex.buildBytesPerChar");
+        heapBudget = (long) (maxHeap * heapFraction(thresholds, "heapFraction"));
+        buildHeapBudget = (long) (maxHeap * heapFraction(thresholds, "buildHeapFraction"));
+    }
+
+    static CalibratedEngineSelector getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public PatternMatcher.Engine select(@NonNull CorpusStatistics statistics) {
+        if (statistics.getCharCount() <= linearScanMaxChars) {
+            return PatternMatcher.Engine.LINEAR_SCAN;
+        }
+
+        for (PatternMatcher.Engine engine : new PatternMatcher.Engine[] {
+                PatternMatcher.Engine.SUFFIX_TREE, PatternMatcher.Engine.SUFFIX_ARRAY}) {
+            if (estimateHeap(engine, statistics) <= heapBudget) {
+                return engine;
+            }
+        }
+        if (estimateHeap(PatternMatcher.Engine.FM_INDEX, statistics) <= heapBudget &&
+                estimateBuildHeap(statistics) <= buildHeapBudget) {
+            return PatternMatcher.Engine.FM_INDEX;
+        }
+        return PatternMatcher.Engine.LINEAR_SCAN;
+    }
+
+    /**
+     * @return estimated peak heap of FM-index build, bytes
+     */
+    long estimateBuildHeap(@NonNull CorpusStatistics statistics) {
+        return (long) (statistics.getCharCount() * fmIndexBuildBytesPerChar);
+    }
+
+    /**
+     * @return estimated heap retained by index of words, bytes
+     * @throws IllegalArgumentException if heap of engine is not calibrated
+     */
+    long estimateHeap(@NonNull PatternMatcher.Engine engine, @NonNull CorpusStatistics statistics) {
+        switch (engine) {
+            case LINEAR_SCAN:
+                return 0;
+            case SUFFIX_TREE:
+                return (long) (statistics.getCharCount() * suffixTreeBytesPerChar);
+            case SUFFIX_ARRAY:
+                return (long) (statistics.getCharCount() * suffixArrayBytesPerChar);
+            case FM_INDEX:
+                int levelCount = FMIndex.levelCount(statistics.getAlphabetSize());
+                return (long) (statistics.getCharCount() *
+                    (fmIndexBytesPerChar + levelCount * TRANSFORM_BYTES_PER_LEVEL));
+            default:
+                throw new IllegalArgumentException(String.format("Heap of engine %s is not calibrated", engine));
+        }
+    }
+
+    private static double heapFraction(Properties thresholds, String key) {
+        double heapFraction = threshold(thresholds, key);
+        if (heapFraction > 1) {
+            throw new IllegalArgumentException(String.format("Invalid heap fraction '%s': %s", key, heapFraction));
+        }
+        return heapFraction;
+    }
+
+    private static double threshold(Properties thresholds, String key) {
+        String value = thresholds.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Missing engine threshold '%s'", key));
+        }
+
+        double threshold;
+        try {
+            threshold = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid engine threshold '%s': %s", key, value), e);
+        }
+        if (!(threshold >= 0)) {
+            throw new IllegalArgumentException(String.format("Invalid engine threshold '%s': %s", key, value));
+        }
+        return threshold;
+    }
+
+    private static Properties loadThresholds() {
+        Properties thresholds = new Properties();
+        try (InputStream input = CalibratedEngineSelector.class.getResourceAsStream(THRESHOLDS_RESOURCE)) {
+            if (input == null) {
+                throw new IllegalStateException(String.format("Missing resource %s", THRESHOLDS_RESOURCE));
+            }
+            thresholds.load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return thresholds;
+    }
+}
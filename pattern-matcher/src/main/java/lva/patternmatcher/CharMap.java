@@ -0,0 +1,130 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Provides compact map with primitive {@code char} keys. Used as children container of suffix tree nodes.
+ * Small maps are kept as sorted parallel arrays of keys and values, large ones as open-addressing hash table.
+ * Lookups do not allocate.
+ *
+ * @author vlitvinenko
+ */
+class CharMap<V> {
+    private static final int MAX_SORTED_SIZE = 8;
+    private static final char[] NO_KEYS = new char[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    @FunctionalInterface
+    interface Consumer<V> {
+        void accept(char key, V value);
+    }
+
+    private char[] keys = NO_KEYS;
+    private Object[] values = NO_VALUES;
+    private int size;
+    /**
+     * number of significant bits of hash, or 0 if map is kept sorted
+     */
+    private int hashBits;
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(char key) {
+        if (hashBits == 0) {
+            // keys are sorted, linear scan is the fastest one for small sizes
+            for (int i = 0; i < size; i++) {
+                char k = keys[i];
+                if (k >= key) {
+                    return k == key ? (V) values[i] : null;
+                }
+            }
+            return null;
+        }
+
+        int mask = keys.length - 1;
+        for (int i = hash(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    void put(char key, @NonNull V value) {
+        if (hashBits == 0) {
+            int idx = Arrays.binarySearch(keys, 0, size, key);
+            if (idx >= 0) {
+                values[idx] = value;
+                return;
+            }
+
+            if (size < MAX_SORTED_SIZE) {
+                idx = -idx - 1;
+                if (size == keys.length) {
+                    int capacity = Math.max(1, size * 2);
+                    keys = Arrays.copyOf(keys, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+                System.arraycopy(keys, idx, keys, idx + 1, size - idx);
+                System.arraycopy(values, idx, values, idx + 1, size - idx);
+                keys[idx] = key;
+                values[idx] = value;
+                size++;
+                return;
+            }
+
+            rehash(Integer.numberOfTrailingZeros(MAX_SORTED_SIZE) + 2);
+        } else if ((size + 1) * 2 > keys.length) {
+            rehash(hashBits + 1);
+        }
+
+        putHashed(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(@NonNull Consumer<? super V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private void putHashed(char key, Object value) {
+        int mask = keys.length - 1;
+        int i = hash(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void rehash(int newHashBits) {
+        char[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        hashBits = newHashBits;
+        keys = new char[1 << newHashBits];
+        values = new Object[1 << newHashBits];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                putHashed(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private int hash(char key) {
+        return (key * 0x9E3779B9) >>> (Integer.SIZE - hashBits);
+    }
+}
@@ -0,0 +1,99 @@
+package lva.patternmatcher;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Represents pattern that has been tokenized into commands once, so it could be matched many times without parsing.
+ * Compiled pattern is immutable and does not depend on indexed words,
+ * so it might be shared between threads and reused with any {@link PatternMatcher}.
+ *
+ * @author vlitvinenko
+ */
+@EqualsAndHashCode(of = "pattern")
+public final class CompiledPattern {
+    private final String pattern;
+    private final List<PatternCommandTokenizer.Command> commands;
+    /**
+     * automaton of commands, or {@code null} if commands are not known to automaton
+     */
+    private final PatternAutomaton automaton;
+
+    private CompiledPattern(String pattern, List<PatternCommandTokenizer.Command> commands) {
+        this.pattern = pattern;
+        this.commands = commands;
+        this.automaton = PatternAutomaton.of(commands);
+    }
+
+    static CompiledPattern compile(@NonNull CharSequence pattern, @NonNull PatternCommandTokenizer commandTokenizer) {
+        // copy pattern, so commands do not refer to mutable sequence
+        String patternCopy = pattern.toString();
+
+        List<PatternCommandTokenizer.Command> commands = new ArrayList<>();
+        commandTokenizer.restart(patternCopy);
+        for (PatternCommandTokenizer.Command command = commandTokenizer.nextCommand(); command != null;
+                command = commandTokenizer.nextCommand()) {
+            commands.add(command);
+        }
+
+        return new CompiledPattern(patternCopy, Collections.unmodifiableList(commands));
+    }
+
+    /**
+     * @return source pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    List<PatternCommandTokenizer.Command> getCommands() {
+        return commands;
+    }
+
+    PatternAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * Matches single word against pattern by scanning the word itself, without index.
+     * Result is the same as entries of the word within result set of {@link PatternMatcher#match(CompiledPattern)}.
+     *
+     * @param word - word to be matched
+     * @return entries of the word, empty if it does not match
+     */
+    <T extends CharSequence & Comparable<? super T>> Optional<MatchingEntries> match(@NonNull T word) {
+        if (automaton != null) {
+            return ofNullable(automaton.match(word));
+        }
+
+        MatchingEntries entries = null;
+        for (PatternCommandTokenizer.Command command : commands) {
+            CharSequence literal = command.getPattern().length() == 0 ? SuffixTree.TERMINAL_SYMBOL : command.getPattern();
+            MatchingEntries occurrences = LinearScan.occurrences(word, literal);
+            if (occurrences == null) {
+                return Optional.empty();
+            }
+
+            Optional<MatchingEntries> result = command.execute(word, entries, occurrences);
+            if (result.isEmpty()) {
+                return result;
+            }
+            entries = result.get();
+        }
+
+        return ofNullable(entries);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
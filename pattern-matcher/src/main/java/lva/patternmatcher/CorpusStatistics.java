@@ -0,0 +1,51 @@
+package lva.patternmatcher;
+
+import lombok.Data;
+import lombok.NonNull;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Represents statistics of words to be searched, used to choose search engine.
+ *
+ * @author vlitvinenko
+ * @see EngineSelector
+ */
+@Data
+public class CorpusStatistics {
+    /**
+     * number of words
+     */
+    private final int wordCount;
+    /**
+     * total number of symbols of words
+     */
+    private final long charCount;
+    /**
+     * number of distinct symbols of words
+     */
+    private final int alphabetSize;
+
+    /**
+     * Collects statistics of words, {@code null}s are skipped.
+     *
+     * @param words - words
+     * @return statistics
+     */
+    static CorpusStatistics of(@NonNull Iterable<? extends CharSequence> words) {
+        int wordCount = 0;
+        long charCount = 0;
+        BitSet alphabet = new BitSet();
+        for (CharSequence word : words) {
+            if (Objects.nonNull(word)) {
+                wordCount++;
+                charCount += word.length();
+                for (int i = 0; i < word.length(); i++) {
+                    alphabet.set(word.charAt(i));
+                }
+            }
+        }
+        return new CorpusStatistics(wordCount, charCount, alphabet.cardinality());
+    }
+}
@@ -0,0 +1,27 @@
+package lva.patternmatcher;
+
+/**
+ * Chooses search engine of {@link PatternMatcher} by statistics of words to be searched.
+ *
+ * @author vlitvinenko
+ * @see PatternMatcher.Builder#setEngineSelector(EngineSelector)
+ */
+@FunctionalInterface
+public interface EngineSelector {
+    /**
+     * @param statistics - statistics of words
+     * @return engine to be built, not {@link PatternMatcher.Engine#AUTO}
+     */
+    PatternMatcher.Engine select(CorpusStatistics statistics);
+
+    /**
+     * Returns selector that applies thresholds calibrated by engine benchmarks and bundled with the library:
+     * small collections of words are scanned without index, larger ones are indexed by the fastest engine
+     * that fits into a fraction of max heap along with its build, or scanned if none of engines fits.
+     *
+     * @return calibrated selector
+     */
+    static EngineSelector calibrated() {
+        return CalibratedEngineSelector.getInstance();
+    }
+}
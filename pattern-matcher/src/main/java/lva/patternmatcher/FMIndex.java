@@ -0,0 +1,259 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Represents compressed full-text index (FM-index) of words, compressed from {@link SuffixArray}.
+ * <p>
+ * Index keeps Burrows-Wheeler transform of suffix array, i.e. symbol preceding each suffix, in {@link WaveletMatrix}.
+ * Suffixes that begin words are preceded by {@link #SEPARATOR} instead of terminal symbol of the previous word,
+ * so patterns never match across words. Symbols are encoded by their ranks within the alphabet of words.
+ * Range of suffixes that start with pattern is found by backward search, i.e. by prepending pattern symbols
+ * one by one, that takes two ranks per symbol regardless of number of words.
+ * <p>
+ * Positions of suffixes are sampled at every {@link #SAMPLE_RATE}th symbol of each word,
+ * position of other suffix is found by stepping back to the sampled one.
+ * Words are not kept by index, they are extracted from transform when index is opened from file.
+ * Arrays are accessed through buffers, so they might reside either in heap or in memory-mapped index file.
+ *
+ * @author vlitvinenko
+ */
+class FMIndex<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
+    static final int SEPARATOR = 0;
+    static final int SAMPLE_RATE = 8;
+
+    final WordDictionary<T> words;
+    /**
+     * symbols of words in ascending order, symbol code is its index plus one
+     */
+    final CharBuffer alphabet;
+    /**
+     * beginning of suffixes that start with each symbol code, followed by number of suffixes
+     */
+    final IntBuffer blocks;
+    final WaveletMatrix transform;
+    /**
+     * rows of sampled suffixes
+     */
+    final BitVector sampled;
+    /**
+     * positions of sampled suffixes in row order
+     */
+    final IntBuffer samples;
+
+    private final int[] wordOffsets;
+    /**
+     * beginning of suffixes which are preceded by each symbol code within its block
+     */
+    private final int[] bases;
+
+    FMIndex(@NonNull WordDictionary<T> words, @NonNull CharBuffer alphabet, @NonNull IntBuffer blocks,
+            @NonNull WaveletMatrix transform, @NonNull BitVector sampled, @NonNull IntBuffer samples) {
+        this.words = words;
+        this.alphabet = alphabet;
+        this.blocks = blocks;
+        this.transform = transform;
+        this.sampled = sampled;
+        this.samples = samples;
+
+        wordOffsets = new int[words.size()];
+        for (int id = 1; id < words.size(); id++) {
+            wordOffsets[id] = wordOffsets[id - 1] + words.get(id - 1).length() + SuffixTree.TERMINAL_SYMBOL.length();
+        }
+        bases = bases(blocks, transform);
+    }
+
+    @Override
+    public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        long range = range(pattern);
+        int from = (int) (range >>> Integer.SIZE);
+        int to = (int) range;
+        if (from == to) {
+            return MatchingResultSet.emptyResultSet();
+        }
+
+        long[] postings = postings(from, to);
+        return words.toResultSet(LongBuffer.wrap(postings), 0, postings.length, 0, pattern.length());
+    }
+
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        long range = range(pattern);
+        return (int) range - (int) (range >>> Integer.SIZE);
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        long range = range(pattern);
+        int from = (int) (range >>> Integer.SIZE);
+        int to = (int) range;
+        if (from == to) {
+            return Collections.emptyIterator();
+        }
+
+        // identifiers are ordered by word length, so marked words are iterated shortest first without sorting
+        long[] marked = words.newBitmap();
+        for (int row = from; row < to; row++) {
+            int id = wordId(locate(row));
+            marked[id >>> 6] |= 1L << id;
+        }
+        return words.toWords(marked);
+    }
+
+    /**
+     * @param alphabetSize - number of symbols of words
+     * @return number of bits to encode symbol codes along with separator
+     */
+    static int levelCount(int alphabetSize) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(alphabetSize));
+    }
+
+    /**
+     * Extracts words from transform, i.e. steps back from terminal symbol of each word up to its beginning.
+     * Terminal suffixes are the first ones of the terminal symbol block and they are ordered by word identifiers.
+     *
+     * @param wordCount - number of words
+     * @return words ordered by their identifiers
+     * @throws IllegalArgumentException if transform does not lead from terminal symbols to beginnings of words
+     */
+    static List<String> extractWords(int wordCount, @NonNull CharBuffer alphabet, @NonNull IntBuffer blocks,
+                                     @NonNull WaveletMatrix transform) {
+        List<String> words = new ArrayList<>(wordCount);
+        if (wordCount == 0) {
+            return words;
+        }
+
+        int[] bases = bases(blocks, transform);
+        int terminal = code(alphabet, SuffixTree.TERMINAL_SYMBOL.charAt(0));
+        if (terminal == SEPARATOR || blocks.get(terminal) + wordCount > blocks.get(terminal + 1)) {
+            throw new IllegalArgumentException(String.format("Transform does not contain %d terminal symbols", wordCount));
+        }
+        StringBuilder word = new StringBuilder();
+        for (int id = 0; id < wordCount; id++) {
+            word.setLength(0);
+            int row = blocks.get(terminal) + id;
+            for (long symbol = transform.access(row); symbol >>> Integer.SIZE != SEPARATOR;
+                    symbol = transform.access(row)) {
+                int code = (int) (symbol >>> Integer.SIZE);
+                if (word.length() == transform.size()) {
+                    throw new IllegalArgumentException(String.format("Word %d does not begin within transform", id));
+                }
+                word.append(alphabet.get(code - 1));
+                row = bases[code] + (int) symbol;
+            }
+            words.add(word.reverse().toString());
+        }
+        return words;
+    }
+
+    /**
+     * Backward search of rows of suffixes that start with pattern.
+     *
+     * @return beginning (high int) and ending (low int) of rows, empty range if there are no occurrences
+     */
+    private long range(CharSequence pattern) {
+        int code = code(alphabet, pattern.charAt(pattern.length() - 1));
+        if (code == SEPARATOR) {
+            return 0;
+        }
+
+        int from = blocks.get(code);
+        int to = blocks.get(code + 1);
+        for (int i = pattern.length() - 2; i >= 0 && from < to; i--) {
+            code = code(alphabet, pattern.charAt(i));
+            if (code == SEPARATOR) {
+                return 0;
+            }
+            from = bases[code] + transform.rank(code, from);
+            to = bases[code] + transform.rank(code, to);
+        }
+        return from < to ? (long) from << Integer.SIZE | to : 0;
+    }
+
+    /**
+     * Locates suffixes of rows.
+     *
+     * @return postings in natural order
+     */
+    private long[] postings(int from, int to) {
+        long[] postings = new long[to - from];
+        for (int row = from; row < to; row++) {
+            int position = locate(row);
+            int id = wordId(position);
+            postings[row - from] = Postings.of(id, position - wordOffsets[id]);
+        }
+        Arrays.sort(postings);
+        return postings;
+    }
+
+    /**
+     * Locates suffix of row, that takes up to {@link #SAMPLE_RATE} steps back.
+     *
+     * @return position of suffix
+     */
+    private int locate(int row) {
+        int steps = 0;
+        while (!sampled.get(row)) {
+            long symbol = transform.access(row);
+            row = bases[(int) (symbol >>> Integer.SIZE)] + (int) symbol;
+            steps++;
+        }
+        return samples.get(sampled.rank(row)) + steps;
+    }
+
+    /**
+     * @return identifier of word that contains position
+     */
+    private int wordId(int position) {
+        int id = Arrays.binarySearch(wordOffsets, position);
+        return id >= 0 ? id : -id - 2;
+    }
+
+    /**
+     * Suffixes preceded by symbol are ordered the same way as suffixes that start with it, but terminal suffixes
+     * are not preceded by anything within their words. Terminal suffixes are the first ones of their block,
+     * so the preceded suffixes are the last ones of each block.
+     */
+    private static int[] bases(IntBuffer blocks, WaveletMatrix transform) {
+        int[] bases = new int[blocks.limit() - 1];
+        for (int code = 0; code < bases.length; code++) {
+            bases[code] = blocks.get(code + 1) - transform.rank(code, transform.size());
+        }
+        return bases;
+    }
+
+    /**
+     * @return code of symbol, or {@link #SEPARATOR} if words do not contain symbol
+     */
+    private static int code(CharBuffer alphabet, char c) {
+        int low = 0;
+        int high = alphabet.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char symbol = alphabet.get(mid);
+            if (symbol < c) {
+                low = mid + 1;
+            } else if (symbol > c) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return SEPARATOR;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Objects;
 
 /**
  * Provides finite state machine implementation.
+ * Transitions by enum events are kept in tables indexed by event ordinal, so dispatching takes no hashing.
  *
  * @author vlitvinenko
  */
@@ -25,15 +26,65 @@ class FiniteStateMachine<S, E> {
 
     private static class State<S, E> {
         final S state;
-        final Map<E, Event<S, E>> events = new HashMap<>();
+        /**
+         * transitions indexed by event ordinal while all events are constants of the same enum
+         */
+        Event<S, E>[] eventTable;
+        Class<?> eventClass;
+        /**
+         * transitions by arbitrary events
+         */
+        Map<E, Event<S, E>> events;
 
         State(S state) {
             this.state = state;
         }
+
+        Event<S, E> get(E e) {
+            if (eventTable != null) {
+                // events of other types are never put into table
+                return e instanceof Enum && ((Enum<?>) e).getDeclaringClass() == eventClass ?
+                    eventTable[((Enum<?>) e).ordinal()] : null;
+            }
+            return events != null ? events.get(e) : null;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void put(E e, Event<S, E> event) {
+            if (events == null && e instanceof Enum) {
+                Class<?> enumClass = ((Enum<?>) e).getDeclaringClass();
+                if (eventTable == null) {
+                    eventTable = new Event[enumClass.getEnumConstants().length];
+                    eventClass = enumClass;
+                }
+                if (eventClass == enumClass) {
+                    eventTable[((Enum<?>) e).ordinal()] = event;
+                    return;
+                }
+            }
+
+            if (events == null) {
+                // events of different types, so fall back to map
+                events = new HashMap<>();
+                if (eventTable != null) {
+                    Object[] constants = eventClass.getEnumConstants();
+                    for (int i = 0; i < eventTable.length; i++) {
+                        if (eventTable[i] != null) {
+                            events.put((E) constants[i], eventTable[i]);
+                        }
+                    }
+                    eventTable = null;
+                }
+            }
+            events.put(e, event);
+        }
     }
 
     private static class Event<S, E> {
         final State<S, E> targetState;
+        /**
+         * {@code null} if there is nothing to be done on transition
+         */
         final TransitionFunction<S, E> beforeStateChanged;
 
         Event(State<S, E> targetState, TransitionFunction<S, E> beforeStateChanged) {
@@ -50,17 +101,19 @@ class FiniteStateMachine<S, E> {
     }
 
     void dispatch(@NonNull E e) {
-        Event<S, E> event = currentState.events.get(e);
+        Event<S, E> event = currentState.get(e);
         if (event == null) {
             throw new IllegalArgumentException(String.format("Unexpected event %s for state %s", e, currentState.state));
         }
 
-        event.beforeStateChanged.apply(currentState.state, event.targetState.state, e);
+        if (event.beforeStateChanged != null) {
+            event.beforeStateChanged.apply(currentState.state, event.targetState.state, e);
+        }
         currentState = event.targetState;
     }
 
     boolean isFinished() {
-        return currentState.state.equals(finishedState.state);
+        return currentState == finishedState;
     }
 
     S getCurrentState() {
@@ -80,13 +133,15 @@ class FiniteStateMachine<S, E> {
             State<S, E> fromState = states.computeIfAbsent(from, (k) -> new State<>(from));
             State<S, E> toState = states.computeIfAbsent(to, (k) -> new State<>(to));
 
-            Event<S, E> event = new Event<>(toState, beforeStateChanged);
-            fromState.events.put(e, event);
+            fromState.put(e, new Event<>(toState, beforeStateChanged));
             return this;
         }
 
-        Builder<S, E> addTransition(S from, S to, E e) {
-            addTransition(from, to, e, (f, t, ev) -> {});
+        Builder<S, E> addTransition(@NonNull S from, @NonNull S to, @NonNull E e) {
+            State<S, E> fromState = states.computeIfAbsent(from, (k) -> new State<>(from));
+            State<S, E> toState = states.computeIfAbsent(to, (k) -> new State<>(to));
+
+            fromState.put(e, new Event<>(toState, null));
             return this;
         }
 
@@ -0,0 +1,142 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Represents immutable annotated suffix tree compacted into flat arrays.
+ * Nodes are identified by indexes, children of each node have contiguous indexes and are sorted by first symbol,
+ * edge labels are ranges of one shared array of symbols (all words with terminal symbols)
+ * and node postings are ranges of one shared postings array.
+ * Arrays are accessed through buffers, so they might reside either in heap or in memory-mapped index file.
+ *
+ * @author vlitvinenko
+ */
+class FrozenSuffixTree<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    final WordDictionary<T> words;
+    final IntBuffer wordOffsets;
+    final CharBuffer labels;
+    final IntBuffer labelOffsets;
+    final IntBuffer labelLengths;
+    final IntBuffer childrenOffsets;
+    final IntBuffer postingsOffsets;
+    final LongBuffer postings;
+
+    FrozenSuffixTree(@NonNull WordDictionary<T> words, @NonNull IntBuffer wordOffsets, @NonNull CharBuffer labels,
+                     @NonNull IntBuffer labelOffsets, @NonNull IntBuffer labelLengths,
+                     @NonNull IntBuffer childrenOffsets, @NonNull IntBuffer postingsOffsets,
+                     @NonNull LongBuffer postings) {
+        this.words = words;
+        this.wordOffsets = wordOffsets;
+        this.labels = labels;
+        this.labelOffsets = labelOffsets;
+        this.labelLengths = labelLengths;
+        this.childrenOffsets = childrenOffsets;
+        this.postingsOffsets = postingsOffsets;
+        this.postings = postings;
+    }
+
+    /**
+     * @return number of nodes
+     */
+    int size() {
+        return labelOffsets.limit();
+    }
+
+    @Override
+    public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        long location = locate(pattern);
+        if (location != NONE) {
+            // matches
+            int node = (int) (location >>> 32);
+            int sequenceIdx = (int) location;
+            return words.toResultSet(postings, postingsOffsets.get(node), postingsOffsets.get(node + 1),
+                sequenceIdx - pattern.length(), pattern.length());
+        }
+
+        return MatchingResultSet.emptyResultSet();
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        long location = locate(pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern);
+        if (location != NONE) {
+            int node = (int) (location >>> 32);
+            return words.toWords(postings, postingsOffsets.get(node), postingsOffsets.get(node + 1));
+        }
+
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        long location = locate(pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern);
+        if (location != NONE) {
+            int node = (int) (location >>> 32);
+            return postingsOffsets.get(node + 1) - postingsOffsets.get(node);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Finds node where {@code pattern} ends.
+     *
+     * @param pattern - pattern
+     * @return node index and number of matched symbols of its label packed into long, or {@link #NONE}
+     */
+    private long locate(CharSequence pattern) {
+        int node = ROOT;
+        int patternIdx = 0;
+        int sequenceIdx = 0;
+
+        while (patternIdx < pattern.length() && (node = findChild(node, pattern.charAt(patternIdx))) != NONE) {
+            int labelOffset = labelOffsets.get(node);
+            int labelLength = labelLengths.get(node);
+
+            sequenceIdx = 0;
+            while (sequenceIdx < labelLength && patternIdx < pattern.length() &&
+                    labels.get(labelOffset + sequenceIdx) == pattern.charAt(patternIdx)) {
+
+                patternIdx++;
+                sequenceIdx++;
+            }
+
+            if (sequenceIdx < labelLength) {
+                break;
+            }
+        }
+
+        return node != NONE && patternIdx == pattern.length() ? (long) node << 32 | sequenceIdx : NONE;
+    }
+
+    private int findChild(int node, char c) {
+        // binary search by first symbol of children labels
+        int low = childrenOffsets.get(node);
+        int high = childrenOffsets.get(node + 1) - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = labels.get(labelOffsets.get(mid));
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return NONE;
+    }
+}
@@ -0,0 +1,240 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Provides secondary index of CamelCase humps, used to answer capital letter patterns (e.g. 'NPE', 'AbC')
+ * without substring search and combining of every literal.
+ * <p>
+ * Humps of word are its first symbol and every following symbol that is not lower case (terminal symbol included),
+ * hump initials are symbols at these positions. Words are kept sorted by their initials, so words which initials
+ * start with initials of pattern are found by binary search, and then literals are checked at hump positions only.
+ * <p>
+ * Pattern is applicable if it begins from the beginning of word and all its following literals
+ * are strictly concatenated, i.e. it consists of {@link BeginPatternCommand} followed by
+ * {@link ExpressionStrictPatternCommand}s. Lower case symbols between matched literals are the only ones allowed
+ * by strict concatenation, so literal always begins at the next hump after the previous literal.
+ *
+ * @author vlitvinenko
+ */
+class HumpIndex<T extends CharSequence & Comparable<? super T>> {
+    private final WordDictionary<T> words;
+    /**
+     * beginning of humps of each word within {@link #humps}, followed by ending of the last word humps
+     */
+    private final int[] humpOffsets;
+    /**
+     * hump positions of words within word followed by terminal symbol
+     */
+    private final int[] humps;
+    /**
+     * word identifiers ordered by hump initials
+     */
+    private final int[] order;
+
+    HumpIndex(@NonNull Iterable<T> words) {
+        this.words = WordDictionary.of(words);
+
+        int size = this.words.size();
+        humpOffsets = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            humpOffsets[id + 1] = humpOffsets[id] + humpCount(this.words.get(id));
+        }
+
+        humps = new int[humpOffsets[size]];
+        for (int id = 0; id < size; id++) {
+            T word = this.words.get(id);
+            int hump = humpOffsets[id];
+            for (int i = 0; i <= word.length(); i++) {
+                if (i == 0 || !Character.isLowerCase(charAt(word, i))) {
+                    humps[hump++] = i;
+                }
+            }
+        }
+
+        order = IntStream.range(0, size).boxed()
+            .sorted((id1, id2) -> compareInitials(id1, id2))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * @param pattern - compiled pattern
+     * @return {@code true} if pattern could be matched by the index
+     */
+    static boolean isApplicable(@NonNull CompiledPattern pattern) {
+        List<PatternCommandTokenizer.Command> commands = pattern.getCommands();
+        if (commands.isEmpty() || !(commands.get(0) instanceof BeginPatternCommand) ||
+                commands.get(0).getPattern().length() == 0) {
+            return false;
+        }
+
+        for (int i = 1; i < commands.size(); i++) {
+            CharSequence literal = commands.get(i).getPattern();
+            if (!(commands.get(i) instanceof ExpressionStrictPatternCommand) ||
+                    literal.length() == 0 || Character.isLowerCase(literal.charAt(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matches words against applicable pattern.
+     *
+     * @param pattern - compiled pattern
+     * @return matching result set, the same as sequential execution of pattern commands gives
+     * @throws IllegalArgumentException if pattern is not applicable
+     * @see #isApplicable(CompiledPattern)
+     */
+    MatchingResultSet<T> match(@NonNull CompiledPattern pattern) {
+        if (!isApplicable(pattern)) {
+            throw new IllegalArgumentException(String.format("Pattern '%s' is not applicable to hump index",
+                pattern.getPattern()));
+        }
+
+        String initials = initials(pattern.getCommands());
+        int from = findInitials(initials, false);
+        int to = findInitials(initials, true);
+
+        int[] ids = Arrays.copyOfRange(order, from, to);
+        Arrays.sort(ids);
+        MatchingEntries[] entries = new MatchingEntries[ids.length];
+
+        int size = 0;
+        for (int id : ids) {
+            MatchingEntries wordEntries = match(id, pattern.getCommands());
+            if (wordEntries != null) {
+                ids[size] = id;
+                entries[size++] = wordEntries;
+            }
+        }
+
+        return MatchingResultSet.of(words, ids, entries, size);
+    }
+
+    private MatchingEntries match(int id, List<PatternCommandTokenizer.Command> commands) {
+        T word = words.get(id);
+        MatchingEntries entries = new MatchingEntries();
+
+        int hump = humpOffsets[id];
+        int position = 0;
+        for (PatternCommandTokenizer.Command command : commands) {
+            // the next hump after previous literal
+            while (hump < humpOffsets[id + 1] && humps[hump] < position) {
+                hump++;
+            }
+            if (hump == humpOffsets[id + 1] || !startsWith(word, humps[hump], command.getPattern())) {
+                return null;
+            }
+
+            position = humps[hump] + command.getPattern().length();
+            entries.add(humps[hump], position);
+        }
+        return entries;
+    }
+
+    /**
+     * Searches for range of words which initials start with {@code initials}.
+     *
+     * @return the first word of range if {@code isUpper} is {@code false}, otherwise the word following the range
+     */
+    private int findInitials(String initials, boolean isUpper) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int compared = compareInitials(order[mid], initials);
+            if (compared < 0 || isUpper && compared == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares initials of word with prefix, initials that start with prefix are considered as equal.
+     */
+    private int compareInitials(int id, String prefix) {
+        T word = words.get(id);
+        int count = humpOffsets[id + 1] - humpOffsets[id];
+        for (int i = 0; i < prefix.length(); i++) {
+            if (i == count) {
+                return -1;
+            }
+            int compared = Character.compare(charAt(word, humps[humpOffsets[id] + i]), prefix.charAt(i));
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return 0;
+    }
+
+    private int compareInitials(int id1, int id2) {
+        T word1 = words.get(id1);
+        T word2 = words.get(id2);
+        int count1 = humpOffsets[id1 + 1] - humpOffsets[id1];
+        int count2 = humpOffsets[id2 + 1] - humpOffsets[id2];
+        for (int i = 0; i < Math.min(count1, count2); i++) {
+            int compared = Character.compare(
+                charAt(word1, humps[humpOffsets[id1] + i]), charAt(word2, humps[humpOffsets[id2] + i]));
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(count1, count2);
+    }
+
+    /**
+     * Initials of pattern are the same as initials of words it matches, i.e. the first symbol of pattern
+     * and all following symbols of its literals that are not lower case.
+     */
+    private static String initials(List<PatternCommandTokenizer.Command> commands) {
+        StringBuilder initials = new StringBuilder();
+        for (PatternCommandTokenizer.Command command : commands) {
+            CharSequence literal = command.getPattern();
+            for (int i = 0; i < literal.length(); i++) {
+                if (initials.length() == 0 || !Character.isLowerCase(literal.charAt(i))) {
+                    initials.append(literal.charAt(i));
+                }
+            }
+        }
+        return initials.toString();
+    }
+
+    private static int humpCount(CharSequence word) {
+        int count = 1;
+        for (int i = 1; i <= word.length(); i++) {
+            if (!Character.isLowerCase(charAt(word, i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean startsWith(CharSequence word, int position, CharSequence literal) {
+        if (position + literal.length() > word.length() + SuffixTree.TERMINAL_SYMBOL.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (charAt(word, position + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return symbol of word followed by terminal symbol
+     */
+    private static char charAt(CharSequence word, int index) {
+        return index < word.length() ? word.charAt(index) : SuffixTree.TERMINAL_SYMBOL.charAt(index - word.length());
+    }
+}
@@ -0,0 +1,379 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Provides binary persistence of {@link FrozenSuffixTree} and {@link FMIndex}.
+ * Saved index is opened with memory mapping, so search works directly on mapped file without loading it into heap.
+ * Opening checks header, sizes of sections and offsets of words, that are read anyway to load words into heap.
+ * Checksum is verified by {@link #verify(Path)}, it reads every page of the file.
+ * <p>
+ * Suffix tree file layout (little endian):
+ * <pre>
+ * magic         int
+ * version       int
+ * checksum      long, CRC32 of everything after this field
+ * words         int, number of words
+ * nodes         int, number of nodes
+ * labels        int, number of symbols
+ * postings      int, number of postings
+ * postings      long[postings]
+ * word offsets  int[words]
+ * label offsets int[nodes]
+ * label lengths int[nodes]
+ * children      int[nodes + 1]
+ * postings      int[nodes + 1]
+ * labels        char[labels]
+ * </pre>
+ * FM-index file layout (little endian), bit vectors are saved as bits followed by rank counts:
+ * <pre>
+ * magic         int
+ * version       int
+ * checksum      long, CRC32 of everything after this field
+ * words         int, number of words
+ * rows          int, number of suffixes
+ * alphabet      int, number of symbols
+ * samples       int, number of sampled suffixes
+ * levels        long[levels][bits], transform levels, number of levels is enough to encode alphabet and separator
+ * sampled       long[bits]
+ * level ranks   long[levels][ranks]
+ * sampled ranks long[ranks]
+ * blocks        int[alphabet + 2]
+ * samples       int[samples]
+ * alphabet      char[alphabet]
+ * </pre>
+ *
+ * @author vlitvinenko
+ */
+final class IndexFile {
+    /**
+     * version 2 - word identifiers are ordered by word length
+     */
+    static final int VERSION = 2;
+    static final int FM_VERSION = 1;
+
+    private static final int MAGIC = 0x50_4D_49_58; // PMIX
+    private static final int FM_MAGIC = 0x50_4D_46_4D; // PMFM
+    private static final int CHECKSUM_OFFSET = 8;
+    private static final int HEADER_SIZE = 32;
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private IndexFile() {}
+
+    /**
+     * Saves {@code tree} into file. File is replaced atomically, so it is safe for readers that have it opened.
+     *
+     * @param tree - tree to be saved
+     * @param path - file path
+     * @throws IOException if file could not be written or index is too large
+     */
+    static void save(@NonNull FrozenSuffixTree<?> tree, @NonNull Path path) throws IOException {
+        int wordCount = tree.wordOffsets.limit();
+        int nodeCount = tree.size();
+        int labelCount = tree.labels.limit();
+        int postingCount = tree.postings.limit();
+
+        long size = fileSize(wordCount, nodeCount, labelCount, postingCount);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Index of %d bytes is too large to be saved", size));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(BYTE_ORDER);
+        buffer.putInt(MAGIC)
+            .putInt(VERSION)
+            .putLong(0)
+            .putInt(wordCount)
+            .putInt(nodeCount)
+            .putInt(labelCount)
+            .putInt(postingCount);
+
+        buffer.asLongBuffer().put(tree.postings.duplicate().clear());
+        buffer.position(buffer.position() + postingCount * Long.BYTES);
+        for (IntBuffer ints : List.of(tree.wordOffsets, tree.labelOffsets, tree.labelLengths,
+                tree.childrenOffsets, tree.postingsOffsets)) {
+            buffer.asIntBuffer().put(ints.duplicate().clear());
+            buffer.position(buffer.position() + ints.limit() * Integer.BYTES);
+        }
+        buffer.asCharBuffer().put(tree.labels.duplicate().clear());
+
+        write(buffer, path);
+    }
+
+    /**
+     * Saves FM-index into file. File is replaced atomically, so it is safe for readers that have it opened.
+     * Words are not saved, they are extracted from index when it is opened.
+     *
+     * @param index - index to be saved
+     * @param path - file path
+     * @throws IOException if file could not be written or index is too large
+     */
+    static void save(@NonNull FMIndex<?> index, @NonNull Path path) throws IOException {
+        int wordCount = index.words.size();
+        int rowCount = index.transform.size();
+        int alphabetSize = index.alphabet.limit();
+        int sampleCount = index.samples.limit();
+        BitVector[] levels = index.transform.levels;
+
+        long size = fmFileSize(rowCount, alphabetSize, sampleCount, levels.length);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Index of %d bytes is too large to be saved", size));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(BYTE_ORDER);
+        buffer.putInt(FM_MAGIC)
+            .putInt(FM_VERSION)
+            .putLong(0)
+            .putInt(wordCount)
+            .putInt(rowCount)
+            .putInt(alphabetSize)
+            .putInt(sampleCount);
+
+        List<BitVector> vectors = new ArrayList<>(List.of(levels));
+        vectors.add(index.sampled);
+        for (BitVector vector : vectors) {
+            buffer.asLongBuffer().put(vector.bits.duplicate().clear());
+            buffer.position(buffer.position() + vector.bits.limit() * Long.BYTES);
+        }
+        for (BitVector vector : vectors) {
+            buffer.asLongBuffer().put(vector.ranks.duplicate().clear());
+            buffer.position(buffer.position() + vector.ranks.limit() * Long.BYTES);
+        }
+        for (IntBuffer section : List.of(index.blocks, index.samples)) {
+            buffer.asIntBuffer().put(section.duplicate().clear());
+            buffer.position(buffer.position() + section.limit() * Integer.BYTES);
+        }
+        buffer.asCharBuffer().put(index.alphabet.duplicate().clear());
+
+        write(buffer, path);
+    }
+
+    private static void write(ByteBuffer buffer, Path path) throws IOException {
+        buffer.putLong(CHECKSUM_OFFSET, checksum(buffer));
+        buffer.clear();
+
+        Path tempPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Opens index file saved with {@link #save(FrozenSuffixTree, Path)}.
+     * Tree is backed by memory-mapped file, only words are loaded into heap.
+     *
+     * @param path - file path
+     * @return frozen suffix tree
+     * @throws IOException if file could not be read, has unsupported version or is corrupted
+     */
+    static FrozenSuffixTree<String> open(@NonNull Path path) throws IOException {
+        ByteBuffer buffer = map(path, MAGIC, VERSION);
+
+        int wordCount = buffer.getInt(16);
+        int nodeCount = buffer.getInt(20);
+        int labelCount = buffer.getInt(24);
+        int postingCount = buffer.getInt(28);
+
+        if (wordCount < 0 || nodeCount < 1 || labelCount < 0 || postingCount < 0 ||
+                fileSize(wordCount, nodeCount, labelCount, postingCount) != buffer.limit()) {
+            throw new IOException(String.format("Index file %s is corrupted", path));
+        }
+
+        int offset = HEADER_SIZE;
+        LongBuffer postings = section(buffer, offset, postingCount * Long.BYTES).asLongBuffer();
+        offset += postingCount * Long.BYTES;
+        IntBuffer wordOffsets = section(buffer, offset, wordCount * Integer.BYTES).asIntBuffer();
+        offset += wordCount * Integer.BYTES;
+        IntBuffer labelOffsets = section(buffer, offset, nodeCount * Integer.BYTES).asIntBuffer();
+        offset += nodeCount * Integer.BYTES;
+        IntBuffer labelLengths = section(buffer, offset, nodeCount * Integer.BYTES).asIntBuffer();
+        offset += nodeCount * Integer.BYTES;
+        IntBuffer childrenOffsets = section(buffer, offset, (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+        offset += (nodeCount + 1) * Integer.BYTES;
+        IntBuffer postingsOffsets = section(buffer, offset, (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+        offset += (nodeCount + 1) * Integer.BYTES;
+        CharBuffer labels = section(buffer, offset, labelCount * Character.BYTES).asCharBuffer();
+
+        // words are followed by terminal symbol within labels
+        List<String> words = new ArrayList<>(wordCount);
+        for (int id = 0; id < wordCount; id++) {
+            int begin = wordOffsets.get(id);
+            int end = (id + 1 < wordCount ? wordOffsets.get(id + 1) : labelCount) - SuffixTree.TERMINAL_SYMBOL.length();
+            if (begin < 0 || begin > end || end > labelCount) {
+                throw new IOException(String.format("Index file %s is corrupted", path));
+            }
+            words.add(labels.subSequence(begin, end).toString());
+        }
+
+        return new FrozenSuffixTree<>(WordDictionary.ofOrdered(words), wordOffsets, labels,
+            labelOffsets, labelLengths, childrenOffsets, postingsOffsets, postings);
+    }
+
+    /**
+     * Opens FM-index file saved with {@link #save(FMIndex, Path)}.
+     * Index is backed by memory-mapped file, only words are extracted into heap, since matchings refer to them.
+     * Extraction steps back through transform once per symbol, so opening reads every level of the file.
+     *
+     * @param path - file path
+     * @return FM-index
+     * @throws IOException if file could not be read, has unsupported version or is corrupted
+     */
+    static FMIndex<String> openFMIndex(@NonNull Path path) throws IOException {
+        ByteBuffer buffer = map(path, FM_MAGIC, FM_VERSION);
+
+        int wordCount = buffer.getInt(16);
+        int rowCount = buffer.getInt(20);
+        int alphabetSize = buffer.getInt(24);
+        int sampleCount = buffer.getInt(28);
+        int levelCount = FMIndex.levelCount(alphabetSize);
+
+        if (wordCount < 0 || rowCount < 0 || alphabetSize < 0 || sampleCount < 0 ||
+                fmFileSize(rowCount, alphabetSize, sampleCount, levelCount) != buffer.limit()) {
+            throw new IOException(String.format("Index file %s is corrupted", path));
+        }
+
+        int bitsLength = BitVector.wordCount(rowCount) * Long.BYTES;
+        int ranksLength = BitVector.rankCount(BitVector.wordCount(rowCount)) * Long.BYTES;
+        int offset = HEADER_SIZE;
+        int ranksOffset = offset + (levelCount + 1) * bitsLength;
+        BitVector[] vectors = new BitVector[levelCount + 1];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = new BitVector(section(buffer, offset, bitsLength).asLongBuffer(),
+                section(buffer, ranksOffset, ranksLength).asLongBuffer());
+            offset += bitsLength;
+            ranksOffset += ranksLength;
+        }
+
+        offset = ranksOffset;
+        IntBuffer blocks = section(buffer, offset, (alphabetSize + 2) * Integer.BYTES).asIntBuffer();
+        offset += (alphabetSize + 2) * Integer.BYTES;
+        IntBuffer samples = section(buffer, offset, sampleCount * Integer.BYTES).asIntBuffer();
+        offset += sampleCount * Integer.BYTES;
+        CharBuffer alphabet = section(buffer, offset, alphabetSize * Character.BYTES).asCharBuffer();
+
+        for (int code = 0; code <= alphabetSize; code++) {
+            if (blocks.get(code) < 0 || blocks.get(code) > blocks.get(code + 1)) {
+                throw new IOException(String.format("Index file %s is corrupted", path));
+            }
+        }
+        if (blocks.get(alphabetSize + 1) != rowCount) {
+            throw new IOException(String.format("Index file %s is corrupted", path));
+        }
+
+        WaveletMatrix transform = new WaveletMatrix(Arrays.copyOf(vectors, levelCount), rowCount);
+        List<String> words;
+        try {
+            words = FMIndex.extractWords(wordCount, alphabet, blocks, transform);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException(String.format("Index file %s is corrupted", path), e);
+        }
+        return new FMIndex<>(WordDictionary.ofOrdered(words), alphabet, blocks, transform,
+            vectors[levelCount], samples);
+    }
+
+    /**
+     * Opens index file saved with either {@link #save(FrozenSuffixTree, Path)} or {@link #save(FMIndex, Path)},
+     * kind of index is told by magic of the file.
+     *
+     * @param path - file path
+     * @return frozen suffix tree or FM-index
+     * @throws IOException if file could not be read, has unsupported version or is corrupted
+     */
+    static Searchable<String> openIndex(@NonNull Path path) throws IOException {
+        return map(path).getInt(0) == FM_MAGIC ? openFMIndex(path) : open(path);
+    }
+
+    /**
+     * Verifies checksum of index file saved with either {@link #save(FrozenSuffixTree, Path)}
+     * or {@link #save(FMIndex, Path)}.
+     *
+     * @param path - file path
+     * @throws IOException if file could not be read, has unsupported version or is corrupted
+     */
+    static void verify(@NonNull Path path) throws IOException {
+        ByteBuffer buffer = map(path);
+        int magic = buffer.getInt(0) == FM_MAGIC ? FM_MAGIC : MAGIC;
+        checkHeader(path, buffer, magic, magic == FM_MAGIC ? FM_VERSION : VERSION);
+
+        if (buffer.getLong(CHECKSUM_OFFSET) != checksum(buffer)) {
+            throw new IOException(String.format("Checksum mismatch of index file %s", path));
+        }
+    }
+
+    private static ByteBuffer map(Path path, int magic, int expectedVersion) throws IOException {
+        ByteBuffer buffer = map(path);
+        checkHeader(path, buffer, magic, expectedVersion);
+        return buffer;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Invalid size %d of index file %s", size, path));
+            }
+            // mapping stays valid after channel closing
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(BYTE_ORDER);
+        }
+        return buffer;
+    }
+
+    private static void checkHeader(Path path, ByteBuffer buffer, int magic, int expectedVersion) throws IOException {
+        if (buffer.getInt(0) != magic) {
+            throw new IOException(String.format("%s is not an index file", path));
+        }
+
+        int version = buffer.getInt(4);
+        if (version != expectedVersion) {
+            throw new IOException(String.format("Unsupported version %d of index file %s, expected %d",
+                version, path, expectedVersion));
+        }
+    }
+
+    private static long fmFileSize(int rowCount, int alphabetSize, int sampleCount, int levelCount) {
+        int bitsCount = BitVector.wordCount(rowCount);
+        return HEADER_SIZE + (levelCount + 1L) * (bitsCount + BitVector.rankCount(bitsCount)) * Long.BYTES +
+            (alphabetSize + 2L + sampleCount) * Integer.BYTES +
+            (long) alphabetSize * Character.BYTES;
+    }
+
+    private static long fileSize(int wordCount, int nodeCount, int labelCount, int postingCount) {
+        return HEADER_SIZE + (long) postingCount * Long.BYTES +
+            ((long) wordCount + 4L * nodeCount + 2) * Integer.BYTES +
+            (long) labelCount * Character.BYTES;
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(CHECKSUM_OFFSET + Long.BYTES).limit(buffer.limit()));
+        return crc.getValue();
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, int offset, int length) {
+        return buffer.duplicate().position(offset).limit(offset + length).slice().order(BYTE_ORDER);
+    }
+}
@@ -0,0 +1,188 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * Represents searchable without index, every search scans all words.
+ * It takes no memory but words themselves and no time to build, so it suits small collections of words,
+ * that are scanned faster than index is built.
+ * <p>
+ * Whole pattern is matched by {@link PatternAutomaton} in a single scan of every word, instead of searching
+ * and combining literals one by one. Words are split into chunks of consecutive identifiers,
+ * which are scanned in parallel if parallelism is greater than one.
+ *
+ * @author vlitvinenko
+ */
+class LinearScan<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
+    private final WordDictionary<T> words;
+    private final int parallelism;
+
+    LinearScan(@NonNull Iterable<T> words) {
+        this(words, 1);
+    }
+
+    /**
+     * @param words - words to be scanned
+     * @param parallelism - number of chunks of words scanned in parallel
+     */
+    LinearScan(@NonNull Iterable<T> words, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Invalid parallelism %d", parallelism));
+        }
+        this.words = WordDictionary.of(words);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Matches every word against pattern automaton.
+     *
+     * @param automaton - automaton of pattern
+     * @return matching result set, the same as sequential execution of pattern commands gives
+     */
+    MatchingResultSet<T> match(@NonNull PatternAutomaton automaton) {
+        int[] ids = new int[words.size()];
+        MatchingEntries[] entries = new MatchingEntries[words.size()];
+
+        int chunkCount = Math.max(1, Math.min(parallelism, words.size()));
+        int chunkSize = (words.size() + chunkCount - 1) / chunkCount;
+        int[] sizes = new int[chunkCount];
+        IntStream chunks = IntStream.range(0, chunkCount);
+        (chunkCount > 1 ? chunks.parallel() : chunks).forEach(chunk -> sizes[chunk] =
+            match(automaton, chunk * chunkSize, Math.min((chunk + 1) * chunkSize, words.size()), ids, entries));
+
+        // matched words of each chunk are at the beginning of its range, so they are gathered in order of identifiers
+        int size = sizes[0];
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            System.arraycopy(ids, chunk * chunkSize, ids, size, sizes[chunk]);
+            System.arraycopy(entries, chunk * chunkSize, entries, size, sizes[chunk]);
+            size += sizes[chunk];
+        }
+
+        return size == 0 ? MatchingResultSet.emptyResultSet() : MatchingResultSet.of(words, ids, entries, size);
+    }
+
+    /**
+     * Matches words of range {@code [from, to)} and puts matched ones at the beginning of range.
+     *
+     * @return number of matched words
+     */
+    private int match(PatternAutomaton automaton, int from, int to, int[] ids, MatchingEntries[] entries) {
+        int size = from;
+        for (int id = from; id < to; id++) {
+            MatchingEntries wordEntries = automaton.match(words.get(id));
+            if (wordEntries != null) {
+                ids[size] = id;
+                entries[size++] = wordEntries;
+            }
+        }
+        return size - from;
+    }
+
+    @Override
+    public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
+        CharSequence literal = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        int[] ids = new int[words.size()];
+        MatchingEntries[] entries = new MatchingEntries[words.size()];
+        int size = 0;
+        for (int id = 0; id < words.size(); id++) {
+            MatchingEntries wordEntries = occurrences(words.get(id), literal);
+            if (wordEntries != null) {
+                ids[size] = id;
+                entries[size++] = wordEntries;
+            }
+        }
+
+        return size == 0 ? MatchingResultSet.emptyResultSet() : MatchingResultSet.of(words, ids, entries, size);
+    }
+
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        CharSequence literal = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        // occurrences are counted without result set, still every word is scanned
+        int count = 0;
+        for (int id = 0; id < words.size(); id++) {
+            for (int i = indexOf(words.get(id), literal, 0); i >= 0; i = indexOf(words.get(id), literal, i + 1)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        CharSequence literal = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        // identifiers are ordered by word length, so words are scanned lazily
+        return new Iterator<T>() {
+            private int next = find(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < words.size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                T word = words.get(next);
+                next = find(next + 1);
+                return word;
+            }
+
+            private int find(int from) {
+                int id = from;
+                while (id < words.size() && indexOf(words.get(id), literal, 0) < 0) {
+                    id++;
+                }
+                return id;
+            }
+        };
+    }
+
+    /**
+     * @return occurrences of literal within word followed by terminal symbol, or {@code null} if there are no ones
+     */
+    static MatchingEntries occurrences(CharSequence word, CharSequence literal) {
+        MatchingEntries entries = null;
+        for (int i = indexOf(word, literal, 0); i >= 0; i = indexOf(word, literal, i + 1)) {
+            entries = entries != null ? entries : new MatchingEntries();
+            entries.add(i, i + literal.length());
+        }
+        return entries;
+    }
+
+    /**
+     * @return the first occurrence of literal within word followed by terminal symbol, starting from index,
+     * or -1 if there is no one
+     */
+    static int indexOf(CharSequence word, CharSequence literal, int from) {
+        int last = word.length() + SuffixTree.TERMINAL_SYMBOL.length() - literal.length();
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < literal.length() && charAt(word, i + j) == literal.charAt(j)) {
+                j++;
+            }
+            if (j == literal.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return symbol of word followed by terminal symbol
+     */
+    static char charAt(CharSequence word, int index) {
+        return index < word.length() ? word.charAt(index) : SuffixTree.TERMINAL_SYMBOL.charAt(index - word.length());
+    }
+}
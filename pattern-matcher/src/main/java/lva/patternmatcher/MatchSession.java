@@ -0,0 +1,125 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides incremental matching of pattern that is edited step by step, e.g. typed by user.
+ * Session keeps result sets of executed commands of the current pattern, so refined pattern
+ * is matched by executing only commands that follow the common prefix of the previous and refined patterns.
+ * Both extension and truncation (backspace) of pattern reuse these prefix states.
+ * Pattern which last literal is extended matches some of the previous words, so they are just matched one by one.
+ * Pattern without executed prefix, or executed by hump index or by scan of words, is executed as a whole
+ * by {@link PatternMatcher}, so only its final state is kept.
+ * States are discarded once words of matcher are updated, so refined pattern is matched against the current words.
+ * <p>
+ * Session is not thread-safe and is expected to be used by single user.
+ *
+ * @author vlitvinenko
+ */
+public class MatchSession<T extends CharSequence & Comparable<? super T>> {
+    private final PatternMatcher<T> matcher;
+    private CompiledPattern pattern;
+    /**
+     * result set after each command, the first one is initial empty result set, {@code null} for commands
+     * of pattern executed as a whole
+     */
+    private final List<MatchingResultSet<T>> states = new ArrayList<>();
+    /**
+     * modification count of matcher words that states are derived from
+     */
+    private int modificationCount;
+
+    MatchSession(@NonNull PatternMatcher<T> matcher) {
+        this.matcher = matcher;
+        this.pattern = matcher.compile("");
+        this.states.add(MatchingResultSet.emptyResultSet());
+        this.modificationCount = matcher.getModificationCount();
+    }
+
+    /**
+     * Matches refined pattern. Result is the same as {@link PatternMatcher#match(CharSequence)} returns.
+     *
+     * @param newPattern - new pattern to match against
+     * @return matching result set
+     */
+    public MatchingResultSet<T> refine(@NonNull CharSequence newPattern) {
+        CompiledPattern newCompiledPattern = matcher.compile(newPattern);
+        // all commands are executed against the same words
+        return matcher.read(() -> refine(newCompiledPattern));
+    }
+
+    private MatchingResultSet<T> refine(CompiledPattern newCompiledPattern) {
+        if (modificationCount != matcher.getModificationCount()) {
+            states.subList(1, states.size()).clear();
+            pattern = matcher.compile("");
+            modificationCount = matcher.getModificationCount();
+        }
+
+        List<PatternCommandTokenizer.Command> commands = pattern.getCommands();
+        List<PatternCommandTokenizer.Command> newCommands = newCompiledPattern.getCommands();
+        pattern = newCompiledPattern;
+
+        if (isLastLiteralExtended(commands, newCommands)) {
+            int last = states.size() - 1;
+            states.set(last, states.get(last).transform((word, entries) -> newCompiledPattern.match(word)));
+            return MatchingResultSet.unmodifiable(states.get(last));
+        }
+
+        int commonPrefix = 0;
+        while (commonPrefix < commands.size() && commonPrefix < newCommands.size() &&
+                commands.get(commonPrefix).equals(newCommands.get(commonPrefix))) {
+            commonPrefix++;
+        }
+
+        states.subList(commonPrefix + 1, states.size()).clear();
+        int executed = commonPrefix;
+        while (states.get(executed) == null) {
+            executed--;
+        }
+
+        if (executed < newCommands.size() && (executed == 0 || matcher.isExecutedAsWhole(newCompiledPattern))) {
+            while (states.size() < newCommands.size()) {
+                states.add(null);
+            }
+            states.add(matcher.execute(newCompiledPattern));
+        } else {
+            states.subList(executed + 1, states.size()).clear();
+            for (int i = executed; i < newCommands.size(); i++) {
+                states.add(matcher.execute(newCommands.get(i), states.get(i)));
+            }
+        }
+
+        return MatchingResultSet.unmodifiable(states.get(states.size() - 1));
+    }
+
+    /**
+     * Word that matches extended literal matches the previous one as well, e.g. 'Abc' and 'Ab'.
+     *
+     * @return {@code true} if commands differ by extended literal of the last command only
+     */
+    private static boolean isLastLiteralExtended(List<PatternCommandTokenizer.Command> commands,
+                                                 List<PatternCommandTokenizer.Command> newCommands) {
+        int last = commands.size() - 1;
+        if (last < 0 || newCommands.size() != commands.size() ||
+                !commands.subList(0, last).equals(newCommands.subList(0, last))) {
+            return false;
+        }
+
+        PatternCommandTokenizer.Command command = commands.get(last);
+        PatternCommandTokenizer.Command newCommand = newCommands.get(last);
+        CharSequence literal = command.getPattern();
+        CharSequence newLiteral = newCommand.getPattern();
+        return command.getClass() == newCommand.getClass() && newLiteral.length() > literal.length() &&
+            CharSequence.compare(newLiteral.subSequence(0, literal.length()), literal) == 0;
+    }
+
+    /**
+     * @return the last refined pattern
+     */
+    public String getPattern() {
+        return pattern.getPattern();
+    }
+}
@@ -0,0 +1,22 @@
+package lva.patternmatcher;
+
+import lombok.Data;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+/**
+ * Represents single word matched against pattern.
+ *
+ * @author vlitvinenko
+ * @see PatternMatcher#stream(CharSequence)
+ */
+@Data
+public class MatchedWord<T extends CharSequence> {
+    /**
+     * matched word
+     */
+    private final T word;
+    /**
+     * matchings of pattern within the word
+     */
+    private final MatchingEntries entries;
+}
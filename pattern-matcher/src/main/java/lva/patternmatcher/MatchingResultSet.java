@@ -1,30 +1,30 @@
 package lva.patternmatcher;
 
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NonNull;
-import lombok.ToString;
 
-import java.util.ArrayList;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.TreeMap;
 import java.util.function.BiFunction;
-import java.util.function.UnaryOperator;
 
 import static java.util.Optional.ofNullable;
 
 
 /**
  * Represents matching results for some sequence, that includes matched words with list of occurrence indexes in each.
+ * Result set of search within index keeps words as their identifiers, they are mapped to words on demand.
  *
  * @author vlitvinenko
  */
-@EqualsAndHashCode
-@ToString
 public class MatchingResultSet<T extends CharSequence & Comparable<? super T>> {
     /**
      * Occurrence indexes within sequence.
@@ -48,82 +48,339 @@ public class MatchingResultSet<T extends CharSequence & Comparable<? super T>> {
 
 
     /**
-     * Provides list of matchings (occurrence indexes)
+     * Provides list of matchings (occurrence indexes).
+     * Matchings are packed into primitive array, so that commands operate on bounds without allocation of intervals.
+     * Entries of search result are read-only view of index postings instead, bounds are shifted when they are read.
      */
-    @EqualsAndHashCode
-    @ToString
     public static class MatchingEntries {
-        private final List<Matching> matchings;
+        private static final int[] NO_BOUNDS = new int[0];
+
+        /**
+         * bounds of matchings, {@code from} and {@code to} of i-th matching are kept at {@code 2 * i} and {@code 2 * i + 1}
+         */
+        private int[] bounds;
+        private int size;
+
+        /**
+         * postings the entries are view of, {@code null} if bounds are kept in array
+         */
+        private LongBuffer postings;
+        private int postingsFrom;
+        private int offset;
+        private int length;
 
         MatchingEntries() {
-            matchings = new ArrayList<>();
+            bounds = NO_BOUNDS;
         }
 
         MatchingEntries(MatchingEntries other) {
-            matchings = new ArrayList<>(other.matchings);
+            // copies are extended by commands, so reserve room for one more matching
+            copyBounds(other, other.size + 1);
+        }
+
+        /**
+         * Creates view of postings of one word. Postings are not copied until entries are modified.
+         *
+         * @param postings - postings
+         * @param from - beginning of word postings, inclusive
+         * @param to - ending of word postings, exclusive
+         * @param offset - shift of each posting index
+         * @param length - length of each matching
+         * @return entries
+         */
+        static MatchingEntries view(@NonNull LongBuffer postings, int from, int to, int offset, int length) {
+            MatchingEntries entries = new MatchingEntries();
+            entries.postings = postings;
+            entries.postingsFrom = from;
+            entries.size = to - from;
+            entries.offset = offset;
+            entries.length = length;
+            return entries;
         }
 
         /**
          * @return list of matchings.
          */
         public List<Matching> getMatchings() {
-            return Collections.unmodifiableList(matchings);
+            return new MatchingList();
         }
 
-        MatchingEntries add(int left, int right) {
-            return add(new Matching(left, right));
+        /**
+         * @return number of matchings
+         */
+        public int size() {
+            return size;
         }
 
-        MatchingEntries add(@NonNull Matching matching) {
-            Matching lastMatching  = getLastMatching().orElse(null);
-            if (lastMatching == null || lastMatching.getFrom() < matching.getFrom()) {
-                matchings.add(matching);
+        /**
+         * @param index - matching index
+         * @return beginning index of matching, inclusive
+         */
+        public int getFrom(int index) {
+            return from(Objects.checkIndex(index, size));
+        }
+
+        /**
+         * @param index - matching index
+         * @return ending index of matching, exclusive
+         */
+        public int getTo(int index) {
+            return to(Objects.checkIndex(index, size));
+        }
+
+        MatchingEntries add(int from, int to) {
+            if (postings != null) {
+                copyBounds(this, size + 1);
+            }
+            if (size == 0 || bounds[size * 2 - 2] < from) {
+                if (size * 2 == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, Math.max(2, bounds.length * 2));
+                }
+                bounds[size * 2] = from;
+                bounds[size * 2 + 1] = to;
+                size++;
             }
             return this;
         }
 
+        MatchingEntries add(@NonNull Matching matching) {
+            return add(matching.getFrom(), matching.getTo());
+        }
+
         Optional<Matching> getFirstMatching() {
-            return ofNullable(matchings.isEmpty() ? null : matchings.get(0));
+            return ofNullable(size == 0 ? null : matching(0));
         }
 
         Optional<Matching> getLastMatching() {
-            return ofNullable(matchings.isEmpty() ? null : matchings.get(matchings.size() - 1));
+            return ofNullable(size == 0 ? null : matching(size - 1));
         }
 
         Optional<Matching> findNearestMatching(@NonNull Matching matching) {
-            // search for nearest entry (lists are sorted)
-            Matching searchMatching = new Matching(matching.getTo(), matching.getTo());
-            int idx = Collections.binarySearch(matchings, searchMatching, (m1, m2) ->
-                Integer.compare(m1.getFrom(), m2.getFrom())
-            );
+            int idx = findNearest(matching.getTo());
+            return ofNullable(idx < size ? matching(idx) : null);
+        }
 
-            idx = idx < 0 ? -idx - 1 : idx;
-            return ofNullable(idx < matchings.size() ? matchings.get(idx) : null);
+        /**
+         * Searches for nearest matching that begins at or after {@code position} (matchings are sorted).
+         *
+         * @param position - position within word
+         * @return index of matching, or {@link #size()} if there is no such one
+         */
+        int findNearest(int position) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (from(mid) < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
         }
 
-        MatchingEntries transform(UnaryOperator<Matching> mapping) {
+        MatchingEntries splitLeft(int offset) {
             MatchingEntries newEntries = new MatchingEntries();
-            matchings.stream().map(mapping).filter(Objects::nonNull)
-                .forEach(newEntries::add);
+            for (int i = 0; i < size; i++) {
+                int from = from(i);
+                int to = from + offset;
+                if (from <= to) {
+                    newEntries.add(from, to);
+                }
+            }
             return newEntries;
         }
 
-        MatchingEntries splitLeft(int offset) {
-            return transform(matching -> {
-                int to = matching.getFrom() + offset;
-                return matching.getFrom() <= to ? new Matching(matching.getFrom(), to) : null;
-            });
+        MatchingEntries splitRight(int offset) {
+            MatchingEntries newEntries = new MatchingEntries();
+            for (int i = 0; i < size; i++) {
+                int from = from(i) + offset;
+                int to = to(i);
+                if (0 <= from && from <= to) {
+                    newEntries.add(from, to);
+                }
+            }
+            return newEntries;
         }
 
-        MatchingEntries splitRight(int offset) {
-            return transform(matching -> {
-                int from = matching.getFrom() + offset;
-                return 0 <= from && from <= matching.getTo() ? new Matching(from, matching.getTo()) : null;
-            });
+        MatchingEntries shift(int offset, int len) {
+            if (postings != null) {
+                return view(postings, postingsFrom, postingsFrom + size, this.offset + offset, len);
+            }
+
+            MatchingEntries newEntries = new MatchingEntries();
+            newEntries.bounds = new int[size * 2];
+            for (int i = 0; i < size; i++) {
+                int from = from(i) + offset;
+                newEntries.add(from, from + len);
+            }
+            return newEntries;
+        }
+
+        private int from(int index) {
+            return postings == null ? bounds[index * 2] : Postings.index(postings.get(postingsFrom + index)) + offset;
+        }
+
+        private int to(int index) {
+            return postings == null ? bounds[index * 2 + 1] : from(index) + length;
+        }
+
+        private void copyBounds(MatchingEntries other, int capacity) {
+            int[] newBounds = new int[capacity * 2];
+            for (int i = 0; i < other.size; i++) {
+                newBounds[i * 2] = other.from(i);
+                newBounds[i * 2 + 1] = other.to(i);
+            }
+            bounds = newBounds;
+            size = other.size;
+            postings = null;
+        }
+
+        private Matching matching(int index) {
+            return new Matching(from(index), to(index));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MatchingEntries)) {
+                return false;
+            }
+            MatchingEntries other = (MatchingEntries) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (from(i) != other.from(i) || to(i) != other.to(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 1;
+            for (int i = 0; i < size; i++) {
+                result = 31 * (31 * result + from(i)) + to(i);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MatchingResultSet.MatchingEntries(matchings=%s)", getMatchings());
+        }
+
+        /**
+         * Read-only view of packed matchings.
+         */
+        private class MatchingList extends AbstractList<Matching> implements RandomAccess {
+            @Override
+            public Matching get(int index) {
+                return matching(Objects.checkIndex(index, size));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Represents result set of words interned by dictionary, i.e. sorted word identifiers with their entries.
+     * Word set is available as bitmap, so result sets of the same dictionary are intersected by word-wide operations.
+     */
+    private abstract static class IndexedEntries<T extends CharSequence & Comparable<? super T>> {
+        final WordDictionary<T> words;
+        final int[] ids;
+        final int size;
+        private BitSet wordIds;
+
+        IndexedEntries(WordDictionary<T> words, int[] ids, int size) {
+            this.words = words;
+            this.ids = ids;
+            this.size = size;
+        }
+
+        /**
+         * @param index - index of word within result set
+         * @return entries of word
+         */
+        abstract MatchingEntries entries(int index);
+
+        BitSet getWordIds() {
+            if (wordIds == null) {
+                wordIds = new BitSet(words.size());
+                for (int i = 0; i < size; i++) {
+                    wordIds.set(ids[i]);
+                }
+            }
+            return wordIds;
+        }
+
+        /**
+         * Bitmap intersection pays off when both result sets have at least one word per bitmap word.
+         */
+        boolean isDense() {
+            return (long) size * Long.SIZE >= words.size();
+        }
+    }
+
+    private static class ArrayEntries<T extends CharSequence & Comparable<? super T>> extends IndexedEntries<T> {
+        private final MatchingEntries[] entries;
+
+        ArrayEntries(WordDictionary<T> words, int[] ids, MatchingEntries[] entries, int size) {
+            super(words, ids, size);
+            this.entries = entries;
+        }
+
+        @Override
+        MatchingEntries entries(int index) {
+            return entries[index];
+        }
+    }
+
+    /**
+     * Result set of search, entries of words are views of index postings that are created on demand,
+     * so words that are dropped by the following commands cost nothing but their identifiers.
+     */
+    private static class PostingsEntries<T extends CharSequence & Comparable<? super T>> extends IndexedEntries<T> {
+        private final LongBuffer postings;
+        /**
+         * beginning of postings of each word, followed by ending of the last word postings
+         */
+        private final int[] starts;
+        private final int offset;
+        private final int length;
+
+        PostingsEntries(WordDictionary<T> words, int[] ids, int size,
+                        LongBuffer postings, int[] starts, int offset, int length) {
+            super(words, ids, size);
+            this.postings = postings;
+            this.starts = starts;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        MatchingEntries entries(int index) {
+            return MatchingEntries.view(postings, starts[index], starts[index + 1], offset, length);
         }
     }
 
-    private final Map<T, MatchingEntries> resultSet;
+    /**
+     * map of words to their entries, {@code null} until indexed entries are materialized
+     */
+    private Map<T, MatchingEntries> resultSet;
+    /**
+     * entries of words interned by dictionary, {@code null} for arbitrary result set
+     */
+    private IndexedEntries<T> indexedEntries;
 
     MatchingResultSet() {
         resultSet = new TreeMap<>();
@@ -133,6 +390,56 @@ public class MatchingResultSet<T extends CharSequence & Comparable<? super T>> {
         this.resultSet = matchingEntriesMap;
     }
 
+    private MatchingResultSet(@NonNull IndexedEntries<T> indexedEntries) {
+        this.indexedEntries = indexedEntries;
+    }
+
+    /**
+     * Creates result set of interned words.
+     *
+     * @param words - dictionary
+     * @param ids - ascending word identifiers
+     * @param entries - entries of words
+     * @param size - number of words
+     * @return result set
+     */
+    static <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> of(
+        @NonNull WordDictionary<T> words, @NonNull int[] ids, @NonNull MatchingEntries[] entries, int size) {
+
+        return new MatchingResultSet<>(new ArrayEntries<>(words, ids, entries, size));
+    }
+
+    /**
+     * Creates result set of postings range, i.e. lazy view that shifts postings when entries are read.
+     *
+     * @param words - dictionary
+     * @param postings - postings sorted by word identifier
+     * @param from - beginning of range, inclusive
+     * @param to - ending of range, exclusive
+     * @param offset - shift of each posting index
+     * @param length - length of each matching
+     * @return result set
+     */
+    static <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> of(
+        @NonNull WordDictionary<T> words, @NonNull LongBuffer postings, int from, int to, int offset, int length) {
+
+        int capacity = Math.min(to - from, words.size());
+        int[] ids = new int[capacity];
+        int[] starts = new int[capacity + 1];
+        int size = 0;
+
+        for (int i = from; i < to; i++) {
+            int wordId = Postings.wordId(postings.get(i));
+            if (size == 0 || wordId != ids[size - 1]) {
+                ids[size] = wordId;
+                starts[size++] = i;
+            }
+        }
+        starts[size] = to;
+
+        return new MatchingResultSet<>(new PostingsEntries<>(words, ids, size, postings, starts, offset, length));
+    }
+
     /**
      * Returns matching result set, that contains a map of matched words to their lists of lower and upper bounds intervals,
      * that represents occurrence indexes within corresponding word.
@@ -140,15 +447,70 @@ public class MatchingResultSet<T extends CharSequence & Comparable<? super T>> {
      * @return matching result set
      */
     public Map<T, MatchingEntries> getResultSet() {
-        return Collections.unmodifiableMap(resultSet);
+        return Collections.unmodifiableMap(map());
+    }
+
+    /**
+     * Materializes map of words, so result set might be safely shared between threads.
+     *
+     * @return this result set
+     */
+    MatchingResultSet<T> materialize() {
+        map();
+        return this;
+    }
+
+    private Map<T, MatchingEntries> map() {
+        if (resultSet == null) {
+            Map<T, MatchingEntries> map = new TreeMap<>();
+            for (int i = 0; i < indexedEntries.size; i++) {
+                map.put(indexedEntries.words.get(indexedEntries.ids[i]), indexedEntries.entries(i));
+            }
+            resultSet = map;
+        }
+        return resultSet;
+    }
+
+    private Map<T, MatchingEntries> mutableMap() {
+        // entries are not interned anymore
+        Map<T, MatchingEntries> map = map();
+        indexedEntries = null;
+        return map;
     }
 
     MatchingResultSet<T> add(T word, int from, int to) {
-        resultSet.computeIfAbsent(word, (i) -> new MatchingEntries()).add(from, to);
+        mutableMap().computeIfAbsent(word, (i) -> new MatchingEntries()).add(from, to);
+        return this;
+    }
+
+    MatchingResultSet<T> put(@NonNull T word, @NonNull MatchingEntries entries) {
+        mutableMap().put(word, entries);
+        return this;
+    }
+
+    MatchingResultSet<T> addAll(@NonNull MatchingResultSet<T> other) {
+        Map<T, MatchingEntries> map = mutableMap();
+        other.map().forEach(map::putIfAbsent);
         return this;
     }
 
     MatchingResultSet<T> transform(BiFunction<? super T, MatchingEntries, Optional<MatchingEntries>> mapping) {
+        if (indexedEntries != null) {
+            IndexedEntries<T> source = indexedEntries;
+            int[] ids = new int[source.size];
+            MatchingEntries[] entries = new MatchingEntries[source.size];
+            int size = 0;
+
+            for (int i = 0; i < source.size; i++) {
+                Optional<MatchingEntries> value = mapping.apply(source.words.get(source.ids[i]), source.entries(i));
+                if (value.isPresent()) {
+                    ids[size] = source.ids[i];
+                    entries[size++] = value.get();
+                }
+            }
+            return of(source.words, ids, entries, size);
+        }
+
         MatchingResultSet<T> result = new MatchingResultSet<>();
         resultSet.forEach((word, entries) -> {
             mapping.apply(word, entries).ifPresent(value -> {
@@ -162,12 +524,26 @@ public class MatchingResultSet<T extends CharSequence & Comparable<? super T>> {
     @FunctionalInterface
     interface CombineFunction <T> {
         Optional<MatchingEntries> apply(T t, MatchingEntries entriesLeft, MatchingEntries entriesRight);
+
+        /**
+         * Applies function to word interned by dictionary, so word data precomputed by dictionary might be used.
+         */
+        default Optional<MatchingEntries> apply(WordDictionary<? extends T> words, int id,
+                                                MatchingEntries entriesLeft, MatchingEntries entriesRight) {
+            return apply(words.get(id), entriesLeft, entriesRight);
+        }
     }
 
     MatchingResultSet<T> combine(MatchingResultSet<T> other, CombineFunction<? super T> combineFunction) {
+        if (indexedEntries != null && other.indexedEntries != null &&
+                indexedEntries.words == other.indexedEntries.words) {
+            return combine(indexedEntries, other.indexedEntries, combineFunction);
+        }
+
         MatchingResultSet<T> result = new MatchingResultSet<>();
-        resultSet.forEach((word, entries) -> {
-            ofNullable(other.resultSet.get(word)).ifPresent(entriesOther -> {
+        Map<T, MatchingEntries> otherResultSet = other.map();
+        map().forEach((word, entries) -> {
+            ofNullable(otherResultSet.get(word)).ifPresent(entriesOther -> {
                 combineFunction.apply(word, entries, entriesOther).ifPresent(combinedEntries -> {
                     result.resultSet.put(word, combinedEntries);
                 });
@@ -176,33 +552,111 @@ public class MatchingResultSet<T extends CharSequence & Comparable<? super T>> {
         return result;
     }
 
+    private static <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> combine(
+        IndexedEntries<T> left, IndexedEntries<T> right, CombineFunction<? super T> combineFunction) {
+
+        int capacity = Math.min(left.size, right.size);
+        int[] ids = new int[capacity];
+        MatchingEntries[] entries = new MatchingEntries[capacity];
+        int size = 0;
+
+        if (left.isDense() && right.isDense()) {
+            // common words by bitmap intersection, then entries are found by moving forward over both sides
+            BitSet commonIds = (BitSet) left.getWordIds().clone();
+            commonIds.and(right.getWordIds());
+
+            int l = 0;
+            int r = 0;
+            for (int id = commonIds.nextSetBit(0); id >= 0; id = commonIds.nextSetBit(id + 1)) {
+                while (left.ids[l] != id) {
+                    l++;
+                }
+                while (right.ids[r] != id) {
+                    r++;
+                }
+
+                Optional<MatchingEntries> combinedEntries = combineFunction.apply(
+                    left.words, id, left.entries(l), right.entries(r));
+                if (combinedEntries.isPresent()) {
+                    ids[size] = id;
+                    entries[size++] = combinedEntries.get();
+                }
+            }
+        } else {
+            // sparse side drives, its words are looked up within another side by binary search
+            boolean isLeftSmaller = left.size <= right.size;
+            IndexedEntries<T> small = isLeftSmaller ? left : right;
+            IndexedEntries<T> large = isLeftSmaller ? right : left;
+
+            int from = 0;
+            for (int i = 0; i < small.size && from < large.size; i++) {
+                int id = small.ids[i];
+                int idx = Arrays.binarySearch(large.ids, from, large.size, id);
+                if (idx < 0) {
+                    from = -idx - 1;
+                    continue;
+                }
+                from = idx + 1;
+
+                Optional<MatchingEntries> combinedEntries = isLeftSmaller ?
+                    combineFunction.apply(left.words, id, small.entries(i), large.entries(idx)) :
+                    combineFunction.apply(left.words, id, large.entries(idx), small.entries(i));
+                if (combinedEntries.isPresent()) {
+                    ids[size] = id;
+                    entries[size++] = combinedEntries.get();
+                }
+            }
+        }
+
+        return of(left.words, ids, entries, size);
+    }
+
     MatchingResultSet<T> splitLeft(int offset) {
         return transform((word, entries) -> {
             MatchingEntries entriesLeft = entries.splitLeft(offset);
-            return ofNullable(entriesLeft.matchings.isEmpty() ? null : entriesLeft);
+            return ofNullable(entriesLeft.size() == 0 ? null : entriesLeft);
         });
     }
 
     MatchingResultSet<T> splitRight(int offset) {
         return transform((word, entries) -> {
             MatchingEntries entriesRight = entries.splitRight(offset);
-            return ofNullable(entriesRight.matchings.isEmpty() ? null : entriesRight);
+            return ofNullable(entriesRight.size() == 0 ? null : entriesRight);
         });
     }
 
     MatchingResultSet<T> shift(int offset, int len) {
         return transform((word, entries) ->
-            Optional.of(entries.transform(matching ->
-                new Matching(matching.getFrom() + offset, matching.getFrom() + offset + len)
-            ))
+            Optional.of(entries.shift(offset, len))
         );
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MatchingResultSet)) {
+            return false;
+        }
+        return map().equals(((MatchingResultSet<?>) o).map());
+    }
+
+    @Override
+    public int hashCode() {
+        return map().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MatchingResultSet(resultSet=%s)", map());
+    }
+
     static <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> emptyResultSet() {
         return unmodifiable(new MatchingResultSet<T>());
     }
 
     static <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> unmodifiable(MatchingResultSet<T> m) {
-        return new MatchingResultSet<>(Collections.unmodifiableMap(m.resultSet));
+        return new MatchingResultSet<>(Collections.unmodifiableMap(m.map()));
     }
 }
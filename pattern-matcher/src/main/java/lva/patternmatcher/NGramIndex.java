@@ -0,0 +1,398 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Represents inverted index of words by their n-grams, i.e. trigrams along with bigrams and unigrams
+ * of words followed by terminal symbol. Each n-gram refers to ascending identifiers of words that contain it,
+ * identifiers are delta encoded into variable length bytes.
+ * <p>
+ * Pattern of up to {@link #MAX_GRAM} symbols is an n-gram itself, longer pattern is covered by its trigrams.
+ * Words that contain all n-grams of pattern are candidates, that are verified by looking for pattern within them.
+ * <p>
+ * Unlike suffix tree, index supports cheap incremental updates: added word is appended to its n-grams, removed word
+ * is just marked as removed and its identifiers are reclaimed when removed words make the most of index.
+ * Updates might be interleaved with searches from other threads, several searches of the same query see the same
+ * words if they are performed by {@link #read(Supplier)}.
+ *
+ * @author vlitvinenko
+ */
+class NGramIndex<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
+    static final int MAX_GRAM = 3;
+
+    /**
+     * Ascending integers encoded as variable length deltas, 7 bits per byte with continuation in the highest bit.
+     */
+    private static class PostingList {
+        private byte[] data = new byte[4];
+        private int length;
+        private int size;
+        private int last = -1;
+        /**
+         * number of n-gram occurrences within words that are not removed, removed words are dropped
+         * from list by compaction only
+         */
+        private int occurrenceCount;
+
+        void add(int id) {
+            if (data.length - length < 5) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int delta = id - last;
+            while ((delta & ~0x7F) != 0) {
+                data[length++] = (byte) (delta & 0x7F | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+            last = id;
+            size++;
+        }
+
+        int[] decode() {
+            int[] ids = new int[size];
+            int id = -1;
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                id += delta;
+                ids[i] = id;
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * words by identifiers, {@code null} for removed ones
+     */
+    private final List<T> words = new ArrayList<>();
+    private final Map<T, Integer> ids = new TreeMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private int removedCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    NGramIndex(@NonNull Iterable<T> words) {
+        words.forEach(word -> {
+            if (Objects.nonNull(word)) {
+                add(word);
+            }
+        });
+    }
+
+    /**
+     * Adds word to index.
+     *
+     * @param word - word to be added
+     * @return {@code true} if index did not contain word
+     */
+    boolean add(@NonNull T word) {
+        lock.writeLock().lock();
+        try {
+            if (ids.containsKey(word)) {
+                return false;
+            }
+            index(word);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes word from index.
+     *
+     * @param word - word to be removed
+     * @return {@code true} if index contained word
+     */
+    boolean remove(@NonNull T word) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.remove(word);
+            if (id == null) {
+                return false;
+            }
+
+            words.set(id, null);
+            unindex(word);
+            removedCount++;
+            if (removedCount * 2 > words.size()) {
+                compact();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Performs query that consists of several searches, e.g. of every pattern literal, so updates from other threads
+     * wait until it is completed.
+     *
+     * @param query - query to be performed
+     * @return result of query
+     */
+    <R> R read(@NonNull Supplier<R> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Performs update that consists of several changes, e.g. of index and of results derived from it,
+     * so neither searches nor updates from other threads see it partially applied.
+     *
+     * @param update - update to be performed
+     * @return result of update
+     */
+    <R> R write(@NonNull Supplier<R> update) {
+        lock.writeLock().lock();
+        try {
+            return update.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of words
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
+        CharSequence literal = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        lock.readLock().lock();
+        try {
+            MatchingResultSet<T> resultSet = null;
+            for (int id : candidateIds(literal)) {
+                T word = words.get(id);
+                MatchingEntries entries = word != null ? LinearScan.occurrences(word, literal) : null;
+                if (entries != null) {
+                    resultSet = resultSet != null ? resultSet : new MatchingResultSet<>();
+                    resultSet.put(word, entries);
+                }
+            }
+            return resultSet != null ? resultSet : MatchingResultSet.emptyResultSet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates selectivity of pattern by the least number of occurrences of its n-grams, which is exact for
+     * pattern of up to {@link #MAX_GRAM} symbols and is upper bound for longer one.
+     */
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        CharSequence literal = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        lock.readLock().lock();
+        try {
+            int estimate = Integer.MAX_VALUE;
+            for (PostingList list : postingLists(literal)) {
+                if (list == null) {
+                    return 0;
+                }
+                estimate = Math.min(estimate, list.occurrenceCount);
+            }
+            return estimate;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        CharSequence literal = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        List<T> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int id : candidateIds(literal)) {
+                T word = words.get(id);
+                if (word != null) {
+                    candidates.add(word);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // identifiers are ordered by insertion, so candidates are ordered by length explicitly
+        candidates.sort(Comparator.<T>comparingInt(CharSequence::length).thenComparing(Comparator.naturalOrder()));
+
+        // candidates contain all n-grams of literal, they are verified lazily
+        return new Iterator<T>() {
+            private int next = find(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < candidates.size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                T word = candidates.get(next);
+                next = find(next + 1);
+                return word;
+            }
+
+            private int find(int from) {
+                int i = from;
+                while (i < candidates.size() && LinearScan.indexOf(candidates.get(i), literal, 0) < 0) {
+                    i++;
+                }
+                return i;
+            }
+        };
+    }
+
+    /**
+     * @return ascending identifiers of words that contain all n-grams of literal
+     */
+    private int[] candidateIds(CharSequence literal) {
+        List<PostingList> lists = postingLists(literal);
+        if (lists.contains(null)) {
+            return new int[0];
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] ids = lists.get(0).decode();
+        int size = ids.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = intersect(ids, size, lists.get(i).decode());
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * N-grams of literal, i.e. literal itself if it is short enough, otherwise trigrams that cover it.
+     *
+     * @return posting list of each n-gram, {@code null} for n-grams that are not indexed
+     */
+    private List<PostingList> postingLists(CharSequence literal) {
+        List<PostingList> lists = new ArrayList<>();
+        if (literal.length() <= MAX_GRAM) {
+            lists.add(postings.get(gram(literal, 0, literal.length())));
+            return lists;
+        }
+
+        for (int i = 0; i + MAX_GRAM < literal.length(); i += MAX_GRAM) {
+            lists.add(postings.get(gram(literal, i, MAX_GRAM)));
+        }
+        lists.add(postings.get(gram(literal, literal.length() - MAX_GRAM, MAX_GRAM)));
+        return lists;
+    }
+
+    private void index(T word) {
+        int id = words.size();
+        words.add(word);
+        ids.put(word, id);
+
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= word.length() + SuffixTree.TERMINAL_SYMBOL.length(); i++) {
+                PostingList list = postings.computeIfAbsent(gram(word, i, n), gram -> new PostingList());
+                // n-gram might occur several times within word
+                if (list.last != id) {
+                    list.add(id);
+                }
+                list.occurrenceCount++;
+            }
+        }
+    }
+
+    /**
+     * Discounts occurrences of removed word within posting lists of its n-grams, identifier itself is kept
+     * until compaction.
+     */
+    private void unindex(T word) {
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= word.length() + SuffixTree.TERMINAL_SYMBOL.length(); i++) {
+                postings.get(gram(word, i, n)).occurrenceCount--;
+            }
+        }
+    }
+
+    /**
+     * Reassigns identifiers of words that are not removed and rebuilds posting lists.
+     */
+    private void compact() {
+        List<T> liveWords = new ArrayList<>(ids.size());
+        for (T word : words) {
+            if (word != null) {
+                liveWords.add(word);
+            }
+        }
+
+        words.clear();
+        ids.clear();
+        postings.clear();
+        removedCount = 0;
+        liveWords.forEach(this::index);
+    }
+
+    /**
+     * Keeps identifiers of {@code ids} which are contained by {@code other}, both are ascending.
+     *
+     * @return number of kept identifiers
+     */
+    private static int intersect(int[] ids, int size, int[] other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < other.length; i++) {
+            while (j < other.length && other[j] < ids[i]) {
+                j++;
+            }
+            if (j < other.length && other[j] == ids[i]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * @return n-gram of word followed by terminal symbol, encoded along with its length
+     */
+    private static long gram(CharSequence word, int from, int length) {
+        long gram = length;
+        for (int i = from; i < from + length; i++) {
+            gram = gram << Character.SIZE | LinearScan.charAt(word, i);
+        }
+        return gram;
+    }
+}
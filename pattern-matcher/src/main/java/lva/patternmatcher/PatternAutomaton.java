@@ -0,0 +1,175 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+import java.util.List;
+
+/**
+ * Represents compiled pattern as a chain of deterministic automata, one per literal, that matches word
+ * followed by terminal symbol in a single left-to-right scan, without index and without looking up
+ * all occurrences of every literal.
+ * <p>
+ * Literal is recognized by Knuth-Morris-Pratt automaton, i.e. literal itself along with its failure function,
+ * so every symbol of word is consumed once. Commands take the nearest occurrence that follows the previous literal,
+ * so automaton of the next literal continues the scan right where the previous literal has been matched:
+ * <ul>
+ *     <li>{@link BeginPatternCommand} literal is matched at the beginning of word only</li>
+ *     <li>{@link BeginAnyPatternCommand} literal is matched at its first occurrence</li>
+ *     <li>{@link ExpressionAnyPatternCommand} literal is matched at its first occurrence after the previous one</li>
+ *     <li>{@link ExpressionStrictPatternCommand} literal is the same, but symbols between literals must be
+ *     lower case, so the scan fails as soon as the nearest occurrence could not begin before other symbol</li>
+ * </ul>
+ *
+ * @author vlitvinenko
+ */
+final class PatternAutomaton {
+    private static final int BEGIN = 0;
+    private static final int BEGIN_ANY = 1;
+    private static final int EXP_ANY = 2;
+    private static final int EXP_STRICT = 3;
+
+    /**
+     * kind of each literal
+     */
+    private final int[] kinds;
+    private final char[][] literals;
+    /**
+     * failure function of each literal, i.e. length of the longest proper prefix of literal
+     * that is also suffix of its first {@code i + 1} symbols
+     */
+    private final int[][] failures;
+
+    private PatternAutomaton(int[] kinds, char[][] literals, int[][] failures) {
+        this.kinds = kinds;
+        this.literals = literals;
+        this.failures = failures;
+    }
+
+    /**
+     * Compiles commands of pattern into automaton.
+     *
+     * @param commands - commands of pattern
+     * @return automaton, or {@code null} if some of commands is not known to automaton
+     */
+    static PatternAutomaton of(@NonNull List<PatternCommandTokenizer.Command> commands) {
+        int[] kinds = new int[commands.size()];
+        char[][] literals = new char[commands.size()][];
+        int[][] failures = new int[commands.size()][];
+
+        for (int i = 0; i < commands.size(); i++) {
+            PatternCommandTokenizer.Command command = commands.get(i);
+            Class<?> commandClass = command.getClass();
+            if (commandClass == BeginPatternCommand.class) {
+                kinds[i] = BEGIN;
+            } else if (commandClass == BeginAnyPatternCommand.class) {
+                kinds[i] = BEGIN_ANY;
+            } else if (commandClass == ExpressionAnyPatternCommand.class) {
+                kinds[i] = EXP_ANY;
+            } else if (commandClass == ExpressionStrictPatternCommand.class) {
+                kinds[i] = EXP_STRICT;
+            } else {
+                return null;
+            }
+
+            // empty literal is searched as terminal symbol, like index does
+            CharSequence literal = command.getPattern().length() == 0 ? SuffixTree.TERMINAL_SYMBOL : command.getPattern();
+            literals[i] = literal.toString().toCharArray();
+            failures[i] = failure(literals[i]);
+        }
+
+        return new PatternAutomaton(kinds, literals, failures);
+    }
+
+    /**
+     * Matches word against pattern.
+     * Result is the same as sequential execution of pattern commands gives for the word.
+     *
+     * @param word - word to be matched
+     * @return entries of the word, or {@code null} if it does not match
+     */
+    MatchingEntries match(@NonNull CharSequence word) {
+        if (kinds.length == 0) {
+            return null;
+        }
+
+        MatchingEntries entries = new MatchingEntries();
+        int position = 0;
+        for (int step = 0; step < kinds.length; step++) {
+            int from = kinds[step] == BEGIN ? (startsWith(word, literals[step]) ? 0 : -1) :
+                find(word, step, position, kinds[step] == EXP_STRICT);
+            if (from < 0) {
+                return null;
+            }
+
+            position = from + literals[step].length;
+            entries.add(from, position);
+        }
+        return entries;
+    }
+
+    /**
+     * Runs automaton of literal over word followed by terminal symbol, starting from {@code from}.
+     *
+     * @param isStrict - whether symbols between {@code from} and occurrence must be lower case
+     * @return the first occurrence of literal, or -1 if there is no one
+     */
+    private int find(CharSequence word, int step, int from, boolean isStrict) {
+        char[] literal = literals[step];
+        int[] failure = failures[step];
+        int end = word.length() + SuffixTree.TERMINAL_SYMBOL.length();
+
+        // strict occurrence could not begin after the first symbol which is not lower case
+        int limit = end;
+        int state = 0;
+        for (int i = from; i < end; i++) {
+            char symbol = LinearScan.charAt(word, i);
+            if (isStrict && limit == end && i < word.length() && !Character.isLowerCase(symbol)) {
+                limit = i;
+            }
+
+            while (state > 0 && literal[state] != symbol) {
+                state = failure[state - 1];
+            }
+            if (literal[state] == symbol) {
+                state++;
+            }
+
+            int begin = i + 1 - state;
+            if (state == literal.length) {
+                return begin <= limit ? begin : -1;
+            }
+            if (begin > limit || end - begin < literal.length) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(CharSequence word, char[] literal) {
+        if (literal.length > word.length() + SuffixTree.TERMINAL_SYMBOL.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length; i++) {
+            if (LinearScan.charAt(word, i) != literal[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] failure(char[] literal) {
+        int[] failure = new int[literal.length];
+        int state = 0;
+        for (int i = 1; i < literal.length; i++) {
+            while (state > 0 && literal[state] != literal[i]) {
+                state = failure[state - 1];
+            }
+            if (literal[state] == literal[i]) {
+                state++;
+            }
+            failure[i] = state;
+        }
+        return failure;
+    }
+}
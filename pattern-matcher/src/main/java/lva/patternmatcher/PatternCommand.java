@@ -1,9 +1,11 @@
 package lva.patternmatcher;
 
 import lombok.NonNull;
-import lva.patternmatcher.MatchingResultSet.Matching;
 import lva.patternmatcher.MatchingResultSet.MatchingEntries;
 
+import java.util.Optional;
+
+
 /**
  * Base Command implementation for all kinds of supported patterns.
  *
@@ -21,6 +23,37 @@ abstract class AbstractPatternCommand implements PatternCommandTokenizer.Command
     public CharSequence getPattern() {
         return pattern;
     }
+
+    /**
+     * Commands are equal if they are of the same kind and have equal patterns,
+     * i.e. they produce equal results for equal arguments. Patterns are compared by symbols,
+     * so pattern might be any view of symbols, e.g. of the whole tokenized pattern.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return CharSequence.compare(pattern, ((AbstractPatternCommand) o).pattern) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as hash code of string
+        int hashCode = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            hashCode = 31 * hashCode + pattern.charAt(i);
+        }
+        return 31 * getClass().hashCode() + hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%s", getClass().getSimpleName(), pattern);
+    }
 }
 
 /**
@@ -36,11 +69,17 @@ class BeginPatternCommand extends AbstractPatternCommand {
     public <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> execute(
         MatchingResultSet<T> l, MatchingResultSet<T> r) {
 
-        return r.transform((word, entries) ->
-            entries.getFirstMatching()
-                .filter(matching -> matching.getFrom() == 0)
-                .map(matching -> new MatchingEntries().add(matching))
-        );
+        return r.transform((word, entries) -> execute(word, null, entries));
+    }
+
+    @Override
+    public <T extends CharSequence & Comparable<? super T>> Optional<MatchingEntries> execute(
+        T word, MatchingEntries l, @NonNull MatchingEntries r) {
+
+        if (r.size() == 0 || r.getFrom(0) != 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new MatchingEntries().add(r.getFrom(0), r.getTo(0)));
     }
 }
 
@@ -57,10 +96,17 @@ class BeginAnyPatternCommand extends AbstractPatternCommand {
     public <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> execute(
         MatchingResultSet<T> l, MatchingResultSet<T> r) {
 
-        return r.transform((word, entries) ->
-            entries.getFirstMatching()
-                .map(matching -> new MatchingEntries().add(matching))
-        );
+        return r.transform((word, entries) -> execute(word, null, entries));
+    }
+
+    @Override
+    public <T extends CharSequence & Comparable<? super T>> Optional<MatchingEntries> execute(
+        T word, MatchingEntries l, @NonNull MatchingEntries r) {
+
+        if (r.size() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new MatchingEntries().add(r.getFrom(0), r.getTo(0)));
     }
 }
 
@@ -78,11 +124,22 @@ class ExpressionAnyPatternCommand extends AbstractPatternCommand {
     public <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> execute(
         MatchingResultSet<T> l, MatchingResultSet<T> r) {
 
-        return l.combine(r, (word, entriesLeft, entriesRight) ->
-            entriesLeft.getLastMatching()
-                .flatMap(entriesRight::findNearestMatching)
-                .map(nearestMatching -> new MatchingEntries(entriesLeft).add(nearestMatching))
-        );
+        return l.combine(r, this::execute);
+    }
+
+    @Override
+    public <T extends CharSequence & Comparable<? super T>> Optional<MatchingEntries> execute(
+        T word, MatchingEntries l, @NonNull MatchingEntries r) {
+
+        if (l == null || l.size() == 0) {
+            return Optional.empty();
+        }
+
+        int nearest = r.findNearest(l.getTo(l.size() - 1));
+        if (nearest == r.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(new MatchingEntries(l).add(r.getFrom(nearest), r.getTo(nearest)));
     }
 }
 
@@ -100,22 +157,55 @@ class ExpressionStrictPatternCommand extends AbstractPatternCommand {
     public <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> execute(
         MatchingResultSet<T> l, MatchingResultSet<T> r) {
 
-        return l.combine(r, (word, entriesLeft, entriesRight) ->
-            entriesLeft.getLastMatching()
-                .flatMap(matchingLeft ->
-                    entriesRight.findNearestMatching(matchingLeft)
-                        .filter(matchingRight -> isValid(word, matchingLeft, matchingRight))
-                        .map(matchingRight -> new MatchingEntries(entriesLeft).add(matchingRight))
-            )
-        );
+        return l.combine(r, new MatchingResultSet.CombineFunction<T>() {
+            @Override
+            public Optional<MatchingEntries> apply(T word, MatchingEntries entriesLeft, MatchingEntries entriesRight) {
+                return execute(word, entriesLeft, entriesRight);
+            }
+
+            @Override
+            public Optional<MatchingEntries> apply(WordDictionary<? extends T> words, int id,
+                                                   MatchingEntries entriesLeft, MatchingEntries entriesRight) {
+                // interned words have precomputed case boundaries, so gap is checked without word scanning
+                int nearest = findNearest(entriesLeft, entriesRight);
+                if (nearest < 0 ||
+                        !words.isLowerCase(id, lastTo(entriesLeft), entriesRight.getFrom(nearest))) {
+                    return Optional.empty();
+                }
+                return Optional.of(new MatchingEntries(entriesLeft)
+                    .add(entriesRight.getFrom(nearest), entriesRight.getTo(nearest)));
+            }
+        });
+    }
+
+    @Override
+    public <T extends CharSequence & Comparable<? super T>> Optional<MatchingEntries> execute(
+        T word, MatchingEntries l, @NonNull MatchingEntries r) {
+
+        int nearest = findNearest(l, r);
+        if (nearest < 0 || !isValid(word, lastTo(l), r.getFrom(nearest))) {
+            return Optional.empty();
+        }
+        return Optional.of(new MatchingEntries(l).add(r.getFrom(nearest), r.getTo(nearest)));
+    }
+
+    /**
+     * @return index of nearest right matching after the last left one, or {@code -1} if there is no such one
+     */
+    private static int findNearest(MatchingEntries l, MatchingEntries r) {
+        if (l == null || l.size() == 0) {
+            return -1;
+        }
+        int nearest = r.findNearest(lastTo(l));
+        return nearest < r.size() ? nearest : -1;
+    }
 
+    private static int lastTo(MatchingEntries entries) {
+        return entries.getTo(entries.size() - 1);
     }
 
-    private static <T extends CharSequence & Comparable<? super T>> boolean isValid(
-        T word, @NonNull Matching matchingLeft, @NonNull Matching matchingRight) {
+    private static <T extends CharSequence & Comparable<? super T>> boolean isValid(T word, int from, int to) {
         // check pattern
-        int from = matchingLeft.getTo();
-        int to = matchingRight.getFrom();
         boolean isValid = true;
 
         for (int i = from; i < to && isValid; i++) {
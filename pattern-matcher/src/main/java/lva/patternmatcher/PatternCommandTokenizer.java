@@ -1,8 +1,14 @@
 package lva.patternmatcher;
 
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+import java.util.Optional;
+
 /**
  * Represents pattern tokenizer interface.
  * Used for pattern tokenization into commands, that will be executed by {@link lva.patternmatcher.PatternMatcher }.
+ * Tokenizer keeps state of the current pattern, so it is not thread-safe, while commands are immutable.
  *
  * @author vlitvinenko
  */
@@ -27,6 +33,17 @@ interface PatternCommandTokenizer {
          */
         <T extends CharSequence & Comparable<? super T>> MatchingResultSet<T> execute(
             MatchingResultSet<T> l, MatchingResultSet<T> r);
+
+        /**
+         * Performs the same operation on matchings of single word.
+         *
+         * @param word - word
+         * @param l - entries of word within first argument, {@code null} if word is absent in it
+         * @param r - entries of word within second argument
+         * @return new entries of word, empty if word does not match
+         */
+        <T extends CharSequence & Comparable<? super T>> Optional<MatchingEntries> execute(
+            T word, MatchingEntries l, @NonNull MatchingEntries r);
     }
 
     /**
@@ -0,0 +1,121 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Single-pass pattern tokenizer. Pattern symbols are translated into program of commands at once,
+ * without intermediate lexemes, so tokenization takes no allocation but the program itself and returned commands.
+ * Literals of commands are views of the pattern rather than its copies, so pattern is not supposed to be changed
+ * while commands are in use, e.g. {@link CompiledPattern} tokenizes its own copy of pattern.
+ * <p>
+ * Program is int-encoded, every command takes {@link #OP_SIZE} ints: kind of command
+ * and beginning (inclusive) and ending (exclusive) of its literal within the pattern.
+ * Commands are the same as ones of {@link PatternCommandTokenizerImpl}:
+ * <ul>
+ *     <li>literal is a sequence of symbols up to the asterisk, or up to the second capital symbol
+ *     which begins the next strictly concatenated literal</li>
+ *     <li>the first literal is matched from the beginning of word, unless pattern starts with asterisk</li>
+ *     <li>literal that follows asterisk is matched anywhere after the previous one</li>
+ *     <li>pattern of asterisks only matches any word</li>
+ * </ul>
+ *
+ * @author vlitvinenko
+ */
+class PatternCompiler implements PatternCommandTokenizer {
+    private static final int OP_BEGIN = 0;
+    private static final int OP_BEGIN_ANY = 1;
+    private static final int OP_EXP_ANY = 2;
+    private static final int OP_EXP_STRICT = 3;
+    private static final int OP_SIZE = 3;
+
+    private CharSequence pattern;
+    private int[] program = new int[OP_SIZE * 4];
+    private int programSize;
+    private int nextOp;
+
+    @Override
+    public void restart(@NonNull CharSequence pattern) {
+        this.pattern = pattern;
+        programSize = 0;
+        nextOp = 0;
+
+        // kind of command for the next literal
+        int op = OP_BEGIN;
+        boolean isAnyPending = false;
+
+        int i = 0;
+        while (i < pattern.length()) {
+            if (pattern.charAt(i) == '*') {
+                op = op == OP_BEGIN || op == OP_BEGIN_ANY ? OP_BEGIN_ANY : OP_EXP_ANY;
+                isAnyPending = op == OP_BEGIN_ANY;
+                i++;
+                continue;
+            }
+
+            int end = literalEnd(pattern, i);
+            emit(op, i, end);
+            isAnyPending = false;
+
+            // literal that is ended by capital symbol is followed by strictly concatenated one
+            op = end < pattern.length() && pattern.charAt(end) != '*' ? OP_EXP_STRICT : OP_EXP_ANY;
+            i = end;
+        }
+
+        if (isAnyPending) {
+            emit(OP_BEGIN_ANY, pattern.length(), pattern.length());
+        }
+    }
+
+    @Override
+    public Command nextCommand() {
+        if (nextOp == programSize) {
+            return null;
+        }
+
+        int op = program[nextOp];
+        CharSequence literal = CharBuffer.wrap(pattern, program[nextOp + 1], program[nextOp + 2]);
+        nextOp += OP_SIZE;
+
+        switch (op) {
+            case OP_BEGIN:
+                return new BeginPatternCommand(literal);
+            case OP_BEGIN_ANY:
+                return new BeginAnyPatternCommand(literal);
+            case OP_EXP_ANY:
+                return new ExpressionAnyPatternCommand(literal);
+            default:
+                return new ExpressionStrictPatternCommand(literal);
+        }
+    }
+
+    /**
+     * @return ending of literal that begins at {@code from}, exclusive
+     */
+    private static int literalEnd(CharSequence pattern, int from) {
+        boolean hasCapital = Character.isUpperCase(pattern.charAt(from));
+        int i = from + 1;
+        while (i < pattern.length() && pattern.charAt(i) != '*') {
+            if (Character.isUpperCase(pattern.charAt(i))) {
+                if (hasCapital) {
+                    break;
+                }
+                hasCapital = true;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private void emit(int op, int from, int to) {
+        if (programSize == program.length) {
+            program = Arrays.copyOf(program, program.length * 2);
+        }
+        program[programSize] = op;
+        program[programSize + 1] = from;
+        program[programSize + 2] = to;
+        programSize += OP_SIZE;
+    }
+}
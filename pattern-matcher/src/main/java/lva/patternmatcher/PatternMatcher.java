@@ -1,25 +1,95 @@
 package lva.patternmatcher;
 
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Provides AST-based pattern matcher.
+ * Matcher is thread-safe: index is immutable once built, except for words added or removed with
+ * {@link Engine#NGRAM_INDEX}, and every matching parses pattern with its own tokenizer,
+ * so single instance might be shared between threads.
  *
  * @author vlitvinenko
  */
 public class PatternMatcher <T extends CharSequence & Comparable<? super T>> {
-    private final PatternCommandTokenizer commandTokenizer;
+    private final Supplier<PatternCommandTokenizer> commandTokenizerFactory;
     private final Searchable<T> searchable;
+    private final ResultCache<T> resultCache;
+    private final HumpIndex<T> humpIndex;
+    /**
+     * number of updates of words, it is changed under write lock of index, so it is read under read lock
+     */
+    private int modificationCount;
+
+    /**
+     * Kind of index words are searched within.
+     */
+    public enum Engine {
+        /**
+         * annotated suffix tree, the fastest search at the cost of heap
+         */
+        SUFFIX_TREE,
+        /**
+         * generalized suffix array with LCP array, a few bytes per symbol at the cost of binary search
+         */
+        SUFFIX_ARRAY,
+        /**
+         * compressed FM-index, about a byte per symbol at the cost of stepping back to locate each occurrence
+         */
+        FM_INDEX,
+        /**
+         * inverted index of word n-grams, the cheapest build at the cost of verification of candidate words
+         */
+        NGRAM_INDEX,
+        /**
+         * no index, every word is scanned once by automaton of the whole pattern, suits small or frequently
+         * changing collections of words
+         */
+        LINEAR_SCAN,
+        /**
+         * engine is chosen by statistics of words
+         * @see Builder#setEngineSelector(EngineSelector)
+         */
+        AUTO
+    }
 
     /**
      * Constructs matcher from collection of words to be searched.
      * @param words - collection of words
      */
     public PatternMatcher(Iterable<T> words) {
-        this(new PatternCommandTokenizerImpl(), new SuffixTree<>(words));
+        this(PatternCompiler::new, index(words, Engine.SUFFIX_TREE));
+    }
+
+    PatternMatcher(Supplier<PatternCommandTokenizer> commandTokenizerFactory, Searchable<T> searchable) {
+        this(commandTokenizerFactory, searchable, null);
     }
 
-    PatternMatcher(PatternCommandTokenizer commandTokenizer, Searchable<T> searchable) {
-        this.commandTokenizer = commandTokenizer;
+    PatternMatcher(Supplier<PatternCommandTokenizer> commandTokenizerFactory, Searchable<T> searchable,
+                   ResultCache<T> resultCache) {
+        this(commandTokenizerFactory, searchable, resultCache, null);
+    }
+
+    PatternMatcher(Supplier<PatternCommandTokenizer> commandTokenizerFactory, Searchable<T> searchable,
+                   ResultCache<T> resultCache, HumpIndex<T> humpIndex) {
+        this.commandTokenizerFactory = commandTokenizerFactory;
         this.searchable = searchable;
+        this.resultCache = resultCache;
+        this.humpIndex = humpIndex;
     }
 
     /**
@@ -38,17 +108,480 @@ public class PatternMatcher <T extends CharSequence & Comparable<? super T>> {
      * @return matching result set.
      */
     public MatchingResultSet<T> match(CharSequence pattern) {
+        if (resultCache == null) {
+            return read(() -> execute(compile(pattern)));
+        }
+        return read(() -> resultCache.get(pattern, () -> execute(compile(pattern))));
+    }
+
+    /**
+     * Performs matching within loaded words against pattern compiled beforehand.
+     *
+     * @param pattern - compiled pattern to match against
+     * @return matching result set.
+     * @see #match(CharSequence)
+     */
+    public MatchingResultSet<T> match(@NonNull CompiledPattern pattern) {
+        if (resultCache == null) {
+            return read(() -> execute(pattern));
+        }
+        return read(() -> resultCache.get(pattern.getPattern(), () -> execute(pattern)));
+    }
+
+    /**
+     * Adds word to matcher built with {@link Engine#NGRAM_INDEX}. Cached results are cleared,
+     * matchings in progress are completed against words they have started with.
+     *
+     * @param word - word to be added
+     * @return {@code true} if matcher did not contain word
+     * @throws UnsupportedOperationException if index has been built in parallel, is not an n-gram index,
+     * or hump index is enabled
+     */
+    public boolean addWord(@NonNull T word) {
+        return update(index -> index.add(word));
+    }
+
+    /**
+     * Removes word from matcher built with {@link Engine#NGRAM_INDEX}.
+     *
+     * @param word - word to be removed
+     * @return {@code true} if matcher contained word
+     * @throws UnsupportedOperationException if index has been built in parallel, is not an n-gram index,
+     * or hump index is enabled
+     * @see #addWord(CharSequence)
+     */
+    public boolean removeWord(@NonNull T word) {
+        return update(index -> index.remove(word));
+    }
+
+    private boolean update(Predicate<NGramIndex<T>> update) {
+        if (!(searchable instanceof NGramIndex)) {
+            throw new UnsupportedOperationException("Only n-gram index built by single thread could be updated");
+        }
+        if (humpIndex != null) {
+            throw new UnsupportedOperationException("Words of hump index could not be updated");
+        }
+
+        NGramIndex<T> index = (NGramIndex<T>) searchable;
+        // cache is cleared under the same lock, so results of the previous words could not be cached after that
+        return index.write(() -> {
+            boolean isUpdated = update.test(index);
+            if (isUpdated) {
+                modificationCount++;
+                if (resultCache != null) {
+                    resultCache.clear();
+                }
+            }
+            return isUpdated;
+        });
+    }
+
+    /**
+     * Literals of pattern are searched one by one, so words of updatable index are kept
+     * the same until matching is completed.
+     */
+    MatchingResultSet<T> read(Supplier<MatchingResultSet<T>> query) {
+        return searchable instanceof NGramIndex ? ((NGramIndex<T>) searchable).read(query) : query.get();
+    }
+
+    /**
+     * @return number of updates of words, results derived from words before update should be discarded
+     * once it is changed
+     * @see #read(Supplier)
+     */
+    int getModificationCount() {
+        return modificationCount;
+    }
+
+    MatchingResultSet<T> execute(CompiledPattern pattern) {
+        if (humpIndex != null && HumpIndex.isApplicable(pattern)) {
+            return humpIndex.match(pattern).materialize();
+        }
+
+        if (isScannable(pattern)) {
+            return ((LinearScan<T>) searchable).match(pattern.getAutomaton()).materialize();
+        }
+
+        QueryPlan plan = QueryPlan.of(pattern, searchable);
+        if (plan.getStrategy() == QueryPlan.Strategy.CANDIDATES) {
+            return executeCandidates(pattern, pattern.getCommands().get(plan.getCandidatesStep()).getPattern());
+        }
+
         MatchingResultSet<T> resultSet = new MatchingResultSet<>();
+        for (PatternCommandTokenizer.Command command : pattern.getCommands()) {
+            resultSet = execute(command, resultSet);
+        }
 
-        commandTokenizer.restart(pattern);
-        PatternCommandTokenizer.Command command = commandTokenizer.nextCommand();
+        return resultSet.materialize();
+    }
 
-        while (command != null) {
-            resultSet = command.execute(resultSet, searchable.search(command.getPattern()));
-            command = commandTokenizer.nextCommand();
+    private MatchingResultSet<T> executeCandidates(CompiledPattern pattern, CharSequence literal) {
+        MatchingResultSet<T> resultSet = new MatchingResultSet<>();
+
+        Iterator<T> candidates = searchable.candidates(literal);
+        while (candidates.hasNext()) {
+            T word = candidates.next();
+            pattern.match(word).ifPresent(entries -> resultSet.put(word, entries));
         }
 
         return resultSet;
     }
 
+    MatchingResultSet<T> execute(PatternCommandTokenizer.Command command, MatchingResultSet<T> resultSet) {
+        return command.execute(resultSet, searchable.search(command.getPattern()));
+    }
+
+    /**
+     * Explains how pattern would be executed: estimates of its literals and chosen strategy.
+     * Literals are not estimated if pattern is executed as a whole, by hump index or by scan of words.
+     *
+     * @param pattern - pattern to be explained
+     * @return execution plan
+     */
+    public QueryPlan explain(CharSequence pattern) {
+        CompiledPattern compiledPattern = compile(pattern);
+        if (humpIndex != null && HumpIndex.isApplicable(compiledPattern)) {
+            return QueryPlan.of(compiledPattern, QueryPlan.Strategy.HUMPS);
+        }
+        if (isScannable(compiledPattern)) {
+            return QueryPlan.of(compiledPattern, QueryPlan.Strategy.SCAN);
+        }
+        return QueryPlan.of(compiledPattern, searchable);
+    }
+
+    /**
+     * Pattern is executed as a whole rather than literal by literal, i.e. by hump index or by scan of words.
+     */
+    boolean isExecutedAsWhole(CompiledPattern pattern) {
+        return humpIndex != null && HumpIndex.isApplicable(pattern) || isScannable(pattern);
+    }
+
+    /**
+     * Words are not indexed, so the whole pattern is matched by a single scan of every word,
+     * rather than each literal is searched by its own scan.
+     */
+    private boolean isScannable(CompiledPattern pattern) {
+        return searchable instanceof LinearScan && pattern.getAutomaton() != null;
+    }
+
+    /**
+     * Starts incremental matching session, e.g. for search-as-you-type.
+     *
+     * @return new session
+     * @see MatchSession#refine(CharSequence)
+     */
+    public MatchSession<T> newSession() {
+        return new MatchSession<>(this);
+    }
+
+    /**
+     * Tokenizes pattern once, so it could be matched many times without parsing.
+     * Compiled pattern might be matched by any pattern matcher.
+     *
+     * @param pattern - pattern, see {@link #match(CharSequence)} for syntax
+     * @return compiled pattern
+     */
+    public CompiledPattern compile(@NonNull CharSequence pattern) {
+        // tokenizer keeps parsing state, so it is not shared between calls
+        return CompiledPattern.compile(pattern, commandTokenizerFactory.get());
+    }
+
+    /**
+     * Performs lazy matching. Each word is matched against the whole pattern before the next one is taken,
+     * so neither intermediate nor final result sets are built and memory does not depend on number of matched words.
+     * Words are streamed the shortest ones first, words of the same length are ordered naturally.
+     * It makes pagination possible, e.g. {@code stream(pattern).skip(offset).limit(pageSize)}.
+     *
+     * @param pattern - pattern to match against, see {@link #match(CharSequence)}
+     * @return sequential ordered stream of matched words
+     */
+    public Stream<MatchedWord<T>> stream(CharSequence pattern) {
+        return stream(compile(pattern));
+    }
+
+    /**
+     * Performs lazy matching against pattern compiled beforehand.
+     *
+     * @param pattern - compiled pattern to match against
+     * @return sequential ordered stream of matched words
+     * @see #stream(CharSequence)
+     */
+    public Stream<MatchedWord<T>> stream(@NonNull CompiledPattern pattern) {
+        List<PatternCommandTokenizer.Command> commands = pattern.getCommands();
+        if (commands.isEmpty()) {
+            return Stream.empty();
+        }
+
+        // candidates are looked up on terminal operation only
+        Supplier<Spliterator<T>> candidates = () -> Spliterators.spliteratorUnknownSize(
+            searchable.candidates(commands.get(0).getPattern()),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+
+        return StreamSupport.stream(candidates, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL, false)
+            .map(word -> pattern.match(word).map(entries -> new MatchedWord<>(word, entries)))
+            .flatMap(Optional::stream);
+    }
+
+    /**
+     * Performs ranked matching, i.e. returns {@code k} the most relevant words only.
+     *
+     * @param pattern - pattern to match against, see {@link #match(CharSequence)}
+     * @param k - max number of returned words
+     * @param scorer - relevance of matched words, e.g. {@link Scorer#relevance()}
+     * @return matched words in order of decreasing score, words with the same score are ordered naturally
+     */
+    public List<RankedResult<T>> match(CharSequence pattern, int k, @NonNull Scorer<? super T> scorer) {
+        return match(compile(pattern), k, scorer);
+    }
+
+    /**
+     * Performs ranked matching against pattern compiled beforehand.
+     * Words that contain the first pattern literal are matched one by one, the shortest ones first,
+     * so matching stops as soon as score upper bound of remaining words is below the k-th best score.
+     *
+     * @param pattern - compiled pattern to match against
+     * @param k - max number of returned words
+     * @param scorer - relevance of matched words
+     * @return matched words in order of decreasing score, words with the same score are ordered naturally
+     * @see #match(CharSequence, int, Scorer)
+     */
+    public List<RankedResult<T>> match(@NonNull CompiledPattern pattern, int k, @NonNull Scorer<? super T> scorer) {
+        if (k < 1) {
+            throw new IllegalArgumentException(String.format("Invalid number of results %d", k));
+        }
+
+        List<PatternCommandTokenizer.Command> commands = pattern.getCommands();
+        if (commands.isEmpty()) {
+            return List.of();
+        }
+
+        Comparator<RankedResult<T>> rank = Comparator.<RankedResult<T>>comparingDouble(RankedResult::getScore)
+            .reversed()
+            .thenComparing(RankedResult::getWord);
+        // the worst result is on the top
+        PriorityQueue<RankedResult<T>> topResults = new PriorityQueue<>(k, rank.reversed());
+
+        Iterator<T> candidates = searchable.candidates(commands.get(0).getPattern());
+        while (candidates.hasNext()) {
+            T word = candidates.next();
+            if (topResults.size() == k && scorer.upperBound(word.length()) < topResults.peek().getScore()) {
+                // candidates are ordered by length, so none of the rest could get into top results
+                break;
+            }
+
+            pattern.match(word).ifPresent(entries -> {
+                topResults.add(new RankedResult<>(word, entries, scorer.score(word, entries)));
+                if (topResults.size() > k) {
+                    topResults.poll();
+                }
+            });
+        }
+
+        List<RankedResult<T>> results = new ArrayList<>(topResults);
+        results.sort(rank);
+        return results;
+    }
+
+    /**
+     * Returns statistics of result cache.
+     *
+     * @return cache statistics, all zeros if cache is disabled
+     * @see Builder#setCacheSize(int)
+     */
+    public CacheStats getCacheStats() {
+        return resultCache != null ? resultCache.getStats() : CacheStats.EMPTY;
+    }
+
+    /**
+     * Opens matcher from index file saved with {@link #save(Path)}.
+     * Index file is memory-mapped, so it is not loaded into heap and might be shared between processes.
+     * Checksum of the file is verified, so corrupted file is rejected.
+     *
+     * @param indexFile - path to index file
+     * @return pattern matcher
+     * @throws IOException if file could not be read, has unsupported version or is corrupted
+     * @see #load(Path, boolean)
+     */
+    public static PatternMatcher<String> load(@NonNull Path indexFile) throws IOException {
+        return load(indexFile, true);
+    }
+
+    /**
+     * Opens matcher from index file saved with {@link #save(Path)}, optionally verifying checksum of the file.
+     * Verification reads the whole file, so it might be skipped for file that has been verified once,
+     * e.g. after it has been copied, to avoid reading every page on startup.
+     *
+     * @param indexFile - path to index file
+     * @param isVerified - whether checksum of the whole file is verified
+     * @return pattern matcher
+     * @throws IOException if file could not be read, has unsupported version or is corrupted
+     */
+    public static PatternMatcher<String> load(@NonNull Path indexFile, boolean isVerified) throws IOException {
+        if (isVerified) {
+            IndexFile.verify(indexFile);
+        }
+        return new PatternMatcher<>(PatternCompiler::new, IndexFile.openIndex(indexFile));
+    }
+
+    /**
+     * Saves index into file, to be opened later with {@link #load(Path)}.
+     *
+     * @param indexFile - path to index file
+     * @throws IOException if file could not be written
+     * @throws UnsupportedOperationException if index has been built in parallel or is neither suffix tree
+     * nor FM-index
+     */
+    public void save(@NonNull Path indexFile) throws IOException {
+        if (searchable instanceof FrozenSuffixTree) {
+            IndexFile.save((FrozenSuffixTree<?>) searchable, indexFile);
+        } else if (searchable instanceof FMIndex) {
+            IndexFile.save((FMIndex<?>) searchable, indexFile);
+        } else {
+            throw new UnsupportedOperationException(
+                "Only suffix tree or FM-index built by single thread could be saved");
+        }
+    }
+
+    private static <T extends CharSequence & Comparable<? super T>> Searchable<T> index(Iterable<T> words, Engine engine) {
+        switch (engine) {
+            case SUFFIX_ARRAY:
+                return new SuffixArray<>(words);
+            case FM_INDEX:
+                return SuffixArray.compress(words);
+            case NGRAM_INDEX:
+                return new NGramIndex<>(words);
+            case LINEAR_SCAN:
+                return new LinearScan<>(words);
+            default:
+                return new SuffixTree<>(words).freeze();
+        }
+    }
+
+    /**
+     * Provides builder for pattern matcher with non-default settings.
+     */
+    public static class Builder<T extends CharSequence & Comparable<? super T>> {
+        private final Iterable<T> words;
+        private int parallelism = 1;
+        private int cacheSize;
+        private long cacheWeight = Long.MAX_VALUE;
+        private boolean isHumpIndexEnabled;
+        private Engine engine = Engine.SUFFIX_TREE;
+        private EngineSelector engineSelector;
+
+        /**
+         * @param words - collection of words to be searched
+         */
+        public Builder(@NonNull Iterable<T> words) {
+            this.words = words;
+        }
+
+        /**
+         * Sets number of threads used to build index. Words are split into the same number of shards,
+         * each of them is indexed separately and queried in scatter-gather manner.
+         * Words of {@link Engine#LINEAR_SCAN} are not indexed, so they are split into chunks scanned in parallel
+         * by every matching instead.
+         *
+         * @param parallelism - number of threads, 1 by default
+         * @return this builder
+         */
+        public Builder<T> setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException(String.format("Invalid parallelism %d", parallelism));
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Enables cache of matching results. Results are cached by pattern, the least recently used ones are evicted
+         * when cache exceeds max size or max weight.
+         *
+         * @param cacheSize - max number of cached result sets, 0 (disabled) by default
+         * @return this builder
+         */
+        public Builder<T> setCacheSize(int cacheSize) {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException(String.format("Invalid cache size %d", cacheSize));
+            }
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Sets max weight of result cache, i.e. total number of matchings in cached result sets.
+         * Result sets that are heavier than the max weight are not cached.
+         *
+         * @param cacheWeight - max weight of cache, unlimited by default
+         * @return this builder
+         * @see #setCacheSize(int)
+         */
+        public Builder<T> setCacheWeight(long cacheWeight) {
+            if (cacheWeight < 1) {
+                throw new IllegalArgumentException(String.format("Invalid cache weight %d", cacheWeight));
+            }
+            this.cacheWeight = cacheWeight;
+            return this;
+        }
+
+        /**
+         * Enables secondary index of CamelCase humps, built alongside the main one. Patterns that consist of
+         * capital letters and lower case letters following them (e.g. 'NPE', 'AbC') are matched by the hump index
+         * directly, without searching and combining of every literal.
+         *
+         * @param isHumpIndexEnabled - whether hump index is built, {@code false} by default
+         * @return this builder
+         */
+        public Builder<T> setHumpIndexEnabled(boolean isHumpIndexEnabled) {
+            this.isHumpIndexEnabled = isHumpIndexEnabled;
+            return this;
+        }
+
+        /**
+         * Sets kind of index words are searched within.
+         *
+         * @param engine - kind of index, {@link Engine#SUFFIX_TREE} by default
+         * @return this builder
+         */
+        public Builder<T> setEngine(@NonNull Engine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Sets selector of engine for {@link Engine#AUTO}, e.g. to override calibrated choice for some collections
+         * of words and delegate to {@link EngineSelector#calibrated()} for others.
+         *
+         * @param engineSelector - selector, {@link EngineSelector#calibrated()} by default
+         * @return this builder
+         */
+        public Builder<T> setEngineSelector(@NonNull EngineSelector engineSelector) {
+            this.engineSelector = engineSelector;
+            return this;
+        }
+
+        /**
+         * @return new pattern matcher
+         * @throws IllegalArgumentException if engine selector chooses {@link Engine#AUTO}
+         */
+        public PatternMatcher<T> build() {
+            Engine engine = this.engine == Engine.AUTO ? selectEngine() : this.engine;
+            Searchable<T> searchable = engine == Engine.LINEAR_SCAN ? new LinearScan<>(words, parallelism) :
+                parallelism > 1 ? ShardedSearchable.build(words, parallelism, shard -> index(shard, engine)) :
+                index(words, engine);
+            ResultCache<T> resultCache = cacheSize > 0 ? new ResultCache<>(cacheSize, cacheWeight) : null;
+            HumpIndex<T> humpIndex = isHumpIndexEnabled ? new HumpIndex<>(words) : null;
+            return new PatternMatcher<>(PatternCompiler::new, searchable, resultCache, humpIndex);
+        }
+
+        private Engine selectEngine() {
+            EngineSelector selector = engineSelector != null ? engineSelector : EngineSelector.calibrated();
+            CorpusStatistics statistics = CorpusStatistics.of(words);
+            Engine engine = selector.select(statistics);
+            if (engine == null || engine == Engine.AUTO) {
+                throw new IllegalArgumentException(String.format("Invalid engine %s selected for %s", engine, statistics));
+            }
+            return engine;
+        }
+    }
 }
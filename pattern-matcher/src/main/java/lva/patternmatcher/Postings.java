@@ -0,0 +1,25 @@
+package lva.patternmatcher;
+
+/**
+ * Provides encoding of word occurrences as primitive {@code long} postings, i.e. (word id, index within word) pairs.
+ * Postings order is the order of word identifiers and then of indexes.
+ *
+ * @author vlitvinenko
+ */
+final class Postings {
+    static final long[] EMPTY = new long[0];
+
+    private Postings() {}
+
+    static long of(int wordId, int index) {
+        return ((long) wordId << Integer.SIZE) | index;
+    }
+
+    static int wordId(long posting) {
+        return (int) (posting >>> Integer.SIZE);
+    }
+
+    static int index(long posting) {
+        return (int) posting;
+    }
+}
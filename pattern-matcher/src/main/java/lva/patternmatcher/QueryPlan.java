@@ -0,0 +1,167 @@
+package lva.patternmatcher;
+
+import lombok.Data;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents execution plan of compiled pattern, chosen by selectivity of its literals.
+ * Selectivity of literal is estimated as number of its occurrences within indexed words.
+ * <p>
+ * Pattern is executed either sequentially, i.e. literals are searched and combined from left to right,
+ * or by candidates, i.e. only words that contain the rarest literal are matched one by one against the whole pattern.
+ * The latter is chosen when the rarest literal cuts candidates significantly.
+ *
+ * @author vlitvinenko
+ * @see PatternMatcher#explain(CharSequence)
+ */
+public final class QueryPlan {
+    /**
+     * Relative cost of matching one word against one command by scanning the word,
+     * compared to searching and combining one occurrence within index.
+     * Median ratio of both costs measured by {@code QueryPlanBenchmark} over JDK class names.
+     */
+    static final double VERIFICATION_COST = 2.0;
+
+    /**
+     * Kind of pattern execution.
+     */
+    public enum Strategy {
+        /**
+         * all literals are searched and combined from left to right
+         */
+        SEQUENTIAL,
+        /**
+         * words that contain the rarest literal are matched against pattern one by one
+         */
+        CANDIDATES,
+        /**
+         * pattern of capital letters is matched by hump index directly
+         */
+        HUMPS,
+        /**
+         * words are not indexed, so every word is matched against the whole pattern by a single scan
+         */
+        SCAN
+    }
+
+    /**
+     * Represents single command of pattern along with its estimate.
+     */
+    @Data
+    public static class Step {
+        /**
+         * kind of command
+         */
+        private final String command;
+        /**
+         * literal to be searched
+         */
+        private final String literal;
+        /**
+         * number of literal occurrences within indexed words, or -1 if literals are not estimated
+         */
+        private final int estimate;
+    }
+
+    private final String pattern;
+    private final List<Step> steps;
+    private final Strategy strategy;
+    private final int candidatesStep;
+
+    private QueryPlan(String pattern, List<Step> steps, Strategy strategy, int candidatesStep) {
+        this.pattern = pattern;
+        this.steps = steps;
+        this.strategy = strategy;
+        this.candidatesStep = candidatesStep;
+    }
+
+    static QueryPlan of(@NonNull CompiledPattern pattern, @NonNull Searchable<?> searchable) {
+        List<Step> steps = new ArrayList<>();
+        long sequentialCost = 0;
+        int rarestStep = -1;
+
+        for (PatternCommandTokenizer.Command command : pattern.getCommands()) {
+            int estimate = searchable.estimate(command.getPattern());
+            if (rarestStep < 0 || estimate < steps.get(rarestStep).getEstimate()) {
+                rarestStep = steps.size();
+            }
+            steps.add(new Step(command.getClass().getSimpleName(), command.getPattern().toString(), estimate));
+            sequentialCost += estimate;
+        }
+
+        double candidatesCost = rarestStep < 0 ? Double.POSITIVE_INFINITY :
+            (double) steps.get(rarestStep).getEstimate() * steps.size() * VERIFICATION_COST;
+
+        return steps.size() > 1 && candidatesCost < sequentialCost ?
+            new QueryPlan(pattern.getPattern(), Collections.unmodifiableList(steps), Strategy.CANDIDATES, rarestStep) :
+            new QueryPlan(pattern.getPattern(), Collections.unmodifiableList(steps), Strategy.SEQUENTIAL, -1);
+    }
+
+    /**
+     * Creates plan of pattern that is executed as a whole, i.e. by hump index or by scan of words,
+     * so its literals are not estimated.
+     *
+     * @param pattern - compiled pattern
+     * @param strategy - strategy of execution
+     * @return plan of pattern
+     */
+    static QueryPlan of(@NonNull CompiledPattern pattern, @NonNull Strategy strategy) {
+        List<Step> steps = new ArrayList<>();
+        for (PatternCommandTokenizer.Command command : pattern.getCommands()) {
+            steps.add(new Step(command.getClass().getSimpleName(), command.getPattern().toString(), -1));
+        }
+        return new QueryPlan(pattern.getPattern(), Collections.unmodifiableList(steps), strategy, -1);
+    }
+
+    /**
+     * @return source pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return commands of pattern in order of their appearance
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return chosen execution strategy
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return index of step which literal provides candidates, or -1 for sequential execution
+     */
+    public int getCandidatesStep() {
+        return candidatesStep;
+    }
+
+    /**
+     * Returns human-readable explanation of the plan, e.g.
+     * <pre>
+     * pattern '*a*Xyzzy': CANDIDATES
+     *   0: BeginAnyPatternCommand 'a', estimate 20000
+     *   1: ExpressionAnyPatternCommand 'Xyzzy', estimate 3 &lt;- candidates
+     * </pre>
+     */
+    @Override
+    public String toString() {
+        StringBuilder explain = new StringBuilder(String.format("pattern '%s': %s", pattern, strategy));
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            explain.append(String.format("%n  %d: %s '%s'%s%s", i, step.getCommand(), step.getLiteral(),
+                step.getEstimate() < 0 ? "" : String.format(", estimate %d", step.getEstimate()),
+                i == candidatesStep ? " <- candidates" : ""));
+        }
+        return explain.toString();
+    }
+}
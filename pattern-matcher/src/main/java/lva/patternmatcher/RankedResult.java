@@ -0,0 +1,26 @@
+package lva.patternmatcher;
+
+import lombok.Data;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+/**
+ * Represents matched word along with its relevance score.
+ *
+ * @author vlitvinenko
+ * @see PatternMatcher#match(CharSequence, int, Scorer)
+ */
+@Data
+public class RankedResult<T extends CharSequence> {
+    /**
+     * matched word
+     */
+    private final T word;
+    /**
+     * matchings of pattern within the word
+     */
+    private final MatchingEntries entries;
+    /**
+     * relevance score of the word
+     */
+    private final double score;
+}
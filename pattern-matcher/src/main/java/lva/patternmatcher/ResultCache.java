@@ -0,0 +1,134 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Provides LRU cache of matching result sets, bounded by number of result sets and by their total weight,
+ * that is the number of matchings in them.
+ * Cached result sets are dropped along with the matcher, or cleared when words of updatable index are changed.
+ * <p>
+ * Cache is thread-safe. Result sets are computed outside of lock, so the same pattern might be computed
+ * concurrently by several threads, the last one is kept.
+ *
+ * @author vlitvinenko
+ */
+class ResultCache<T extends CharSequence & Comparable<? super T>> {
+    private static class Entry<T extends CharSequence & Comparable<? super T>> {
+        final MatchingResultSet<T> resultSet;
+        final long weight;
+
+        Entry(MatchingResultSet<T> resultSet, long weight) {
+            this.resultSet = resultSet;
+            this.weight = weight;
+        }
+    }
+
+    private final int maxSize;
+    private final long maxWeight;
+    // access order, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maxSize - max number of cached result sets
+     * @param maxWeight - max total number of matchings in cached result sets
+     */
+    ResultCache(int maxSize, long maxWeight) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid cache size %d", maxSize));
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException(String.format("Invalid cache weight %d", maxWeight));
+        }
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns cached result set for {@code pattern}, or computes and caches it if absent.
+     *
+     * @param pattern - source pattern
+     * @param loader - computes result set on cache miss
+     * @return unmodifiable result set
+     */
+    MatchingResultSet<T> get(@NonNull CharSequence pattern, @NonNull Supplier<MatchingResultSet<T>> loader) {
+        String key = normalize(pattern);
+
+        synchronized (this) {
+            Entry<T> entry = entries.get(key);
+            if (entry != null) {
+                hitCount++;
+                return entry.resultSet;
+            }
+            missCount++;
+        }
+
+        MatchingResultSet<T> resultSet = MatchingResultSet.unmodifiable(loader.get());
+        put(key, new Entry<>(resultSet, weight(resultSet)));
+        return resultSet;
+    }
+
+    /**
+     * Drops all cached result sets, statistics are kept.
+     */
+    synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, evictionCount, entries.size(), weight);
+    }
+
+    private synchronized void put(String key, Entry<T> entry) {
+        if (entry.weight > maxWeight) {
+            // would evict everything else
+            return;
+        }
+
+        Entry<T> oldEntry = entries.put(key, entry);
+        weight += entry.weight - (oldEntry != null ? oldEntry.weight : 0);
+
+        Iterator<Map.Entry<String, Entry<T>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize || weight > maxWeight) {
+            Entry<T> eldest = it.next().getValue();
+            it.remove();
+            weight -= eldest.weight;
+            evictionCount++;
+        }
+    }
+
+    private static long weight(MatchingResultSet<?> resultSet) {
+        long weight = 1;
+        for (MatchingResultSet.MatchingEntries entries : resultSet.getResultSet().values()) {
+            weight += entries.size();
+        }
+        return weight;
+    }
+
+    /**
+     * Collapses repeated asterisks, since they are matched the same way as single one.
+     *
+     * @param pattern - source pattern
+     * @return cache key
+     */
+    static String normalize(@NonNull CharSequence pattern) {
+        StringBuilder key = new StringBuilder(pattern.length());
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '*' || key.length() == 0 || key.charAt(key.length() - 1) != '*') {
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+
+
+/**
+ * Represents relevance of matched word, used for ranked matching.
+ * Higher score means more relevant word.
+ *
+ * @author vlitvinenko
+ * @see PatternMatcher#match(CharSequence, int, Scorer)
+ */
+@FunctionalInterface
+public interface Scorer<T extends CharSequence> {
+    /**
+     * @param word - matched word
+     * @param entries - matchings of pattern within the word
+     * @return relevance score
+     */
+    double score(T word, MatchingEntries entries);
+
+    /**
+     * Returns upper bound of score for any word of given length. Bound must not increase with length,
+     * so that ranked matching could stop as soon as longer words are not able to get into top results.
+     *
+     * @param wordLength - word length
+     * @return score upper bound, infinity by default, i.e. all matched words are scored
+     */
+    default double upperBound(int wordLength) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns built-in relevance scorer. It prefers words that are matched from the beginning,
+     * then words with fewer gaps between matchings (humps of CamelCase word skipped by pattern),
+     * then shorter words.
+     *
+     * @return relevance scorer
+     */
+    static <T extends CharSequence> Scorer<T> relevance() {
+        return new Scorer<T>() {
+            private static final double PREFIX_WEIGHT = 100;
+            private static final double GAP_WEIGHT = 10;
+
+            @Override
+            public double score(@NonNull T word, @NonNull MatchingEntries entries) {
+                int gaps = 0;
+                for (int i = 1; i < entries.size(); i++) {
+                    if (entries.getTo(i - 1) < entries.getFrom(i)) {
+                        gaps++;
+                    }
+                }
+                boolean isPrefix = entries.size() > 0 && entries.getFrom(0) == 0;
+
+                return (isPrefix ? PREFIX_WEIGHT : 0) - gaps * GAP_WEIGHT - word.length();
+            }
+
+            @Override
+            public double upperBound(int wordLength) {
+                return PREFIX_WEIGHT - wordLength;
+            }
+        };
+    }
+}
@@ -1,10 +1,46 @@
 package lva.patternmatcher;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
 /**
  * @author vlitvinenko
  */
 
 interface Searchable<T extends CharSequence & Comparable<? super T>> {
+    /**
+     * Order in which {@link #candidates(CharSequence)} returns words.
+     */
+    Comparator<CharSequence> LENGTH_ORDER = Comparator.comparingInt(CharSequence::length);
+
     MatchingResultSet<T> search(CharSequence pattern);
-}
 
+    /**
+     * Estimates cost of {@code pattern} searching, i.e. selectivity of pattern.
+     *
+     * @param pattern - substring to be searched
+     * @return number of occurrences of pattern within all words
+     */
+    default int estimate(CharSequence pattern) {
+        return search(pattern).getResultSet().values().stream()
+            .mapToInt(entries -> entries.size())
+            .sum();
+    }
+
+    /**
+     * Returns distinct words that contain {@code pattern}, the shortest words first
+     * (words of the same length are ordered naturally).
+     * Words are supposed to be produced lazily, so iteration might be stopped early at low cost.
+     *
+     * @param pattern - substring to be searched
+     * @return iterator over words
+     */
+    default Iterator<T> candidates(CharSequence pattern) {
+        List<T> words = new ArrayList<>(search(pattern).getResultSet().keySet());
+        // result set is ordered naturally, sort is stable
+        words.sort(LENGTH_ORDER);
+        return words.iterator();
+    }
+}
@@ -0,0 +1,161 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Represents searchable that is split into shards, each of them indexes its own part of words.
+ * Shards are built in parallel and queried in scatter-gather manner.
+ *
+ * @author vlitvinenko
+ */
+class ShardedSearchable<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
+    private final List<Searchable<T>> shards;
+
+    ShardedSearchable(@NonNull List<Searchable<T>> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Splits {@code words} into {@code parallelism} shards of comparable size in characters
+     * and builds searchable for each of them in parallel.
+     *
+     * @param words - words to be indexed
+     * @param parallelism - number of shards and build threads
+     * @param factory - builds searchable for shard
+     * @return sharded searchable
+     */
+    static <T extends CharSequence & Comparable<? super T>> ShardedSearchable<T> build(
+        @NonNull Iterable<T> words, int parallelism, @NonNull Function<List<T>, Searchable<T>> factory) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Invalid parallelism %d", parallelism));
+        }
+
+        List<List<T>> parts = split(words, parallelism);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new ShardedSearchable<>(pool.submit(() ->
+                parts.parallelStream().map(factory).collect(toList())
+            ).join());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static <T extends CharSequence> List<List<T>> split(Iterable<T> words, int count) {
+        List<T> allWords = new ArrayList<>();
+        long totalLength = 0;
+        for (T word : words) {
+            if (Objects.nonNull(word)) {
+                allWords.add(word);
+                totalLength += word.length() + 1;
+            }
+        }
+
+        // keep words order, so the first of equal words is still found in the first shard
+        List<List<T>> parts = new ArrayList<>();
+        List<T> part = new ArrayList<>();
+        long partLength = 0;
+        for (T word : allWords) {
+            part.add(word);
+            partLength += word.length() + 1;
+            if (partLength * count >= totalLength && parts.size() < count - 1) {
+                parts.add(part);
+                part = new ArrayList<>();
+                partLength = 0;
+            }
+        }
+        parts.add(part);
+
+        return parts;
+    }
+
+    @Override
+    public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
+        MatchingResultSet<T> resultSet = new MatchingResultSet<>();
+        shards.forEach(shard -> resultSet.addAll(shard.search(pattern)));
+        return MatchingResultSet.unmodifiable(resultSet);
+    }
+
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        return shards.stream().mapToInt(shard -> shard.estimate(pattern)).sum();
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        // merge of shard candidates, ties are resolved in favour of the first shard like in search
+        Comparator<T> wordOrder = Comparator.<T>comparingInt(CharSequence::length)
+            .thenComparing(Comparator.naturalOrder());
+        Comparator<ShardCandidates<T>> order = Comparator.<ShardCandidates<T>, T>comparing(shard -> shard.word, wordOrder)
+            .thenComparingInt(shard -> shard.index);
+
+        PriorityQueue<ShardCandidates<T>> queue = new PriorityQueue<>(order);
+        for (int i = 0; i < shards.size(); i++) {
+            ShardCandidates<T> shard = new ShardCandidates<>(i, shards.get(i).candidates(pattern));
+            if (shard.advance()) {
+                queue.add(shard);
+            }
+        }
+
+        return new Iterator<T>() {
+            private T lastWord;
+
+            @Override
+            public boolean hasNext() {
+                while (!queue.isEmpty() && lastWord != null && queue.peek().word.compareTo(lastWord) == 0) {
+                    // the same word is indexed by another shard
+                    poll();
+                }
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                lastWord = poll();
+                return lastWord;
+            }
+
+            private T poll() {
+                ShardCandidates<T> shard = queue.poll();
+                T word = shard.word;
+                if (shard.advance()) {
+                    queue.add(shard);
+                }
+                return word;
+            }
+        };
+    }
+
+    private static class ShardCandidates<T> {
+        final int index;
+        final Iterator<T> words;
+        T word;
+
+        ShardCandidates(int index, Iterator<T> words) {
+            this.index = index;
+            this.words = words;
+        }
+
+        boolean advance() {
+            word = words.hasNext() ? words.next() : null;
+            return word != null;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Represents generalized suffix array over words, i.e. sorted suffixes of all words followed by terminal symbol,
+ * along with LCP array (lengths of the longest common prefixes of adjacent suffixes).
+ * Words are concatenated into one text in order of their identifiers, suffixes are compared within their own words,
+ * so the text takes no separators and suffixes never span several words.
+ * <p>
+ * Equal suffixes are ordered by their positions, so the array could be compressed into {@link FMIndex}.
+ * <p>
+ * Occurrences of substring are a contiguous range of the array, that is found by binary search.
+ * Index takes a few bytes per symbol, unlike suffix tree that keeps a node per suffix.
+ *
+ * @author vlitvinenko
+ */
+class SuffixArray<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
+    private static final int END = -1;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final WordDictionary<T> words;
+    /**
+     * all words with terminal symbols
+     */
+    private final char[] text;
+    /**
+     * beginning of each word within text
+     */
+    private final int[] wordOffsets;
+    /**
+     * bitmap of word beginnings within text, to stop suffix comparison at the end of its word
+     */
+    private final long[] wordStarts;
+    /**
+     * beginnings of suffixes in sorted order
+     */
+    private final int[] suffixes;
+    /**
+     * length of common prefix of each suffix and the previous one, {@code null} if array is built for compression only
+     */
+    private final int[] lcp;
+
+    SuffixArray(@NonNull Iterable<T> words) {
+        this(words, true);
+    }
+
+    private SuffixArray(Iterable<T> words, boolean isLcpBuilt) {
+        this.words = WordDictionary.of(words);
+
+        wordOffsets = new int[this.words.size()];
+        StringBuilder text = new StringBuilder();
+        for (int id = 0; id < this.words.size(); id++) {
+            wordOffsets[id] = text.length();
+            text.append(this.words.get(id)).append(SuffixTree.TERMINAL_SYMBOL);
+        }
+        this.text = text.toString().toCharArray();
+
+        wordStarts = new long[(this.text.length >>> 6) + 1];
+        for (int offset : wordOffsets) {
+            wordStarts[offset >>> 6] |= 1L << offset;
+        }
+
+        suffixes = new int[this.text.length];
+        for (int i = 0; i < suffixes.length; i++) {
+            suffixes[i] = i;
+        }
+        sort(0, suffixes.length, 0);
+
+        if (!isLcpBuilt) {
+            lcp = null;
+            return;
+        }
+        lcp = new int[suffixes.length];
+        for (int i = 1; i < suffixes.length; i++) {
+            int length = 0;
+            while (symbol(suffixes[i], length) != END && symbol(suffixes[i], length) == symbol(suffixes[i - 1], length)) {
+                length++;
+            }
+            lcp[i] = length;
+        }
+    }
+
+    @Override
+    public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        int from = lowerBound(pattern);
+        if (from == suffixes.length || compare(suffixes[from], pattern) != 0) {
+            return MatchingResultSet.emptyResultSet();
+        }
+
+        // the following suffixes start with pattern while they share pattern with the previous ones
+        int to = from + 1;
+        while (to < suffixes.length && lcp[to] >= pattern.length()) {
+            to++;
+        }
+
+        long[] postings = to - from < wordStarts.length ? sortedPostings(from, to) : markedPostings(from, to);
+        return words.toResultSet(LongBuffer.wrap(postings), 0, postings.length, 0, pattern.length());
+    }
+
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+        return upperBound(pattern) - lowerBound(pattern);
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        pattern = pattern.length() == 0 ? SuffixTree.TERMINAL_SYMBOL : pattern;
+
+        // identifiers are ordered by word length, so marked words are iterated shortest first without sorting
+        long[] marked = words.newBitmap();
+        for (int i = lowerBound(pattern), to = upperBound(pattern); i < to; i++) {
+            int id = wordId(suffixes[i]);
+            marked[id >>> 6] |= 1L << id;
+        }
+        return words.toWords(marked);
+    }
+
+    /**
+     * Builds FM-index of words without LCP array, which is needed by search only.
+     * Suffix array is still built in heap, so peak heap of the build is text, suffixes, transform
+     * and working copies of transform, i.e. about 18 bytes per symbol rather than size of the index.
+     *
+     * @param words - collection of words
+     * @return FM-index
+     */
+    static <T extends CharSequence & Comparable<? super T>> FMIndex<T> compress(@NonNull Iterable<T> words) {
+        return new SuffixArray<>(words, false).compress();
+    }
+
+    /**
+     * Compresses array into FM-index, that is searched in the same way, but takes about a byte per symbol.
+     *
+     * @return FM-index of words
+     */
+    FMIndex<T> compress() {
+        char[] alphabet = text.clone();
+        Arrays.sort(alphabet);
+        int alphabetSize = 0;
+        for (int i = 0; i < alphabet.length; i++) {
+            if (i == 0 || alphabet[i] != alphabet[i - 1]) {
+                alphabet[alphabetSize++] = alphabet[i];
+            }
+        }
+        alphabet = Arrays.copyOf(alphabet, alphabetSize);
+
+        // symbol codes are shifted by separator code
+        int[] blocks = new int[alphabetSize + 2];
+        for (char c : text) {
+            blocks[Arrays.binarySearch(alphabet, c) + 2]++;
+        }
+        for (int code = 1; code < blocks.length; code++) {
+            blocks[code] += blocks[code - 1];
+        }
+
+        int[] transform = new int[suffixes.length];
+        long[] sampled = new long[BitVector.wordCount(suffixes.length)];
+        int[] samples = new int[suffixes.length / FMIndex.SAMPLE_RATE + wordOffsets.length];
+        int sampleCount = 0;
+        for (int row = 0; row < suffixes.length; row++) {
+            int suffix = suffixes[row];
+            transform[row] = isWordStart(suffix) ?
+                FMIndex.SEPARATOR : Arrays.binarySearch(alphabet, text[suffix - 1]) + 1;
+
+            int id = wordId(suffix);
+            if ((suffix - wordOffsets[id]) % FMIndex.SAMPLE_RATE == 0) {
+                sampled[row >>> 6] |= 1L << row;
+                samples[sampleCount++] = suffix;
+            }
+        }
+
+        return new FMIndex<>(words, CharBuffer.wrap(alphabet), IntBuffer.wrap(blocks),
+            WaveletMatrix.of(transform, FMIndex.levelCount(alphabetSize)), BitVector.of(sampled),
+            IntBuffer.wrap(Arrays.copyOf(samples, sampleCount)));
+    }
+
+    /**
+     * Sorts occurrences of few suffixes by word identifier and position.
+     */
+    private long[] sortedPostings(int from, int to) {
+        long[] postings = new long[to - from];
+        for (int i = from; i < to; i++) {
+            int id = wordId(suffixes[i]);
+            postings[i - from] = Postings.of(id, suffixes[i] - wordOffsets[id]);
+        }
+        Arrays.sort(postings);
+        return postings;
+    }
+
+    /**
+     * Orders occurrences of many suffixes by marking them within text, text order is the order
+     * of word identifiers and positions within words.
+     */
+    private long[] markedPostings(int from, int to) {
+        long[] occurrences = new long[wordStarts.length];
+        for (int i = from; i < to; i++) {
+            occurrences[suffixes[i] >>> 6] |= 1L << suffixes[i];
+        }
+
+        long[] postings = new long[to - from];
+        int size = 0;
+        int id = 0;
+        for (int i = 0; i < occurrences.length; i++) {
+            for (long bits = occurrences[i]; bits != 0; bits &= bits - 1) {
+                int position = (i << 6) + Long.numberOfTrailingZeros(bits);
+                while (id + 1 < wordOffsets.length && wordOffsets[id + 1] <= position) {
+                    id++;
+                }
+                postings[size++] = Postings.of(id, position - wordOffsets[id]);
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * @return index of the first suffix that is not less than pattern
+     */
+    private int lowerBound(CharSequence pattern) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixes[mid], pattern) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first suffix that is greater than pattern and does not start with it
+     */
+    private int upperBound(CharSequence pattern) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixes[mid], pattern) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares suffix with pattern, suffix that starts with pattern is considered as equal to it.
+     */
+    private int compare(int suffix, CharSequence pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            int symbol = symbol(suffix, i);
+            if (symbol != pattern.charAt(i)) {
+                return symbol == END ? -1 : Integer.compare(symbol, pattern.charAt(i));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return symbol of suffix at depth, or {@link #END} if suffix is shorter
+     */
+    private int symbol(int suffix, int depth) {
+        int position = suffix + depth;
+        if (position >= text.length || depth > 0 && isWordStart(position)) {
+            return END;
+        }
+        return text[position];
+    }
+
+    private boolean isWordStart(int position) {
+        return (wordStarts[position >>> 6] & 1L << position) != 0;
+    }
+
+    private int wordId(int position) {
+        int id = Arrays.binarySearch(wordOffsets, position);
+        return id >= 0 ? id : -id - 2;
+    }
+
+    /**
+     * Sorts range of suffixes that share prefix of {@code depth} symbols, by multikey quicksort.
+     */
+    private void sort(int from, int to, int depth) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int pivot = symbol(suffixes[(from + to) >>> 1], depth);
+
+            // three-way partition by symbol at depth: [from, lt) < pivot, [lt, gt) == pivot, [gt, to) > pivot
+            int lt = from;
+            int gt = to;
+            int i = from;
+            while (i < gt) {
+                int symbol = symbol(suffixes[i], depth);
+                if (symbol < pivot) {
+                    swap(lt++, i++);
+                } else if (symbol > pivot) {
+                    swap(i, --gt);
+                } else {
+                    i++;
+                }
+            }
+
+            sort(from, lt, depth);
+            sort(gt, to, depth);
+            if (pivot == END) {
+                // suffixes have ended, so they are equal and ordered by position
+                Arrays.sort(suffixes, lt, gt);
+                return;
+            }
+
+            from = lt;
+            to = gt;
+            depth++;
+        }
+
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(suffixes[j - 1], suffixes[j], depth) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private int compare(int suffix1, int suffix2, int depth) {
+        for (int i = depth; ; i++) {
+            int symbol1 = symbol(suffix1, i);
+            int symbol2 = symbol(suffix2, i);
+            if (symbol1 != symbol2) {
+                return Integer.compare(symbol1, symbol2);
+            }
+            if (symbol1 == END) {
+                return Integer.compare(suffix1, suffix2);
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int suffix = suffixes[i];
+        suffixes[i] = suffixes[j];
+        suffixes[j] = suffix;
+    }
+}
@@ -2,9 +2,14 @@ package lva.patternmatcher;
 
 import lombok.NonNull;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Represents annotated suffix tree (AST).
@@ -13,34 +18,23 @@ import java.util.Objects;
  * @author vlitvinenko
  */
 class SuffixTree<T extends CharSequence & Comparable<? super T>> implements Searchable<T> {
-    private static final String TERMINAL_SYMBOL = " ";
+    static final String TERMINAL_SYMBOL = " ";
 
-    private static class Node<T extends CharSequence & Comparable<? super T>> {
-        final Map<Character, Node<T>> children;
-        final MatchingResultSet<T> matchings;
+    static class Node {
+        final CharMap<Node> children = new CharMap<>();
         final CharSequence sequence;
+        /**
+         * occurrences of node sequence within words
+         */
+        long[] postings = Postings.EMPTY;
 
         Node(CharSequence sequence) {
-            this(sequence, new HashMap<>(), new MatchingResultSet<>());
-        }
-
-        Node(CharSequence sequence, Map<Character, Node<T>> children, MatchingResultSet<T> matchings) {
             this.sequence = sequence;
-            this.children = children;
-            this.matchings = matchings;
-        }
-
-        Node<T> newLeft(int len) {
-            return new Node<>(sequence.subSequence(0, len), new HashMap<>(), matchings.splitLeft(len));
         }
-
-        Node<T> newRight(int len) {
-            return new Node<>(sequence.subSequence(len, sequence.length()), new HashMap<>(), matchings.splitRight(len));
-        }
-
     }
 
-    private final Node<T> rootNode = new Node<>("");
+    private final WordDictionary<T> words;
+    private final Node rootNode;
 
     /**
      * Constructs AST from collection of {@code words}.
@@ -48,74 +42,26 @@ class SuffixTree<T extends CharSequence & Comparable<? super T>> implements Sear
      * @param words - words to be added
      */
     SuffixTree(@NonNull Iterable<T> words) {
-        words.forEach(word -> {
-            if (Objects.nonNull(word)) {
-                addWord(word);
-            }
-        });
-    }
-
-    private void addWord(@NonNull T word) {
-        // add suffixes
-        CharSequence suffix = new StringBuilder(word) // to avoid Object.toString() calling
-            .append(TERMINAL_SYMBOL);
-
-        for (int i = 0; i < suffix.length(); i++) {
-
-            Node<T> node = rootNode;
-            Node<T> prevNode = node;
-            int suffixIdx = i;
-
-            while (suffixIdx < suffix.length() &&
-                    (node = node.children.get(suffix.charAt(suffixIdx))) != null) {
-
-                int sequenceIdx = 0;
-                int suffixStartIdx = suffixIdx;
+        this.words = WordDictionary.of(words);
 
-                // test for matching with node
-                while (sequenceIdx < node.sequence.length() &&
-                    node.sequence.charAt(sequenceIdx) == suffix.charAt(suffixIdx)) {
-
-                    suffixIdx++;
-                    sequenceIdx++;
-                }
-
-                if (sequenceIdx == node.sequence.length()) {
-                    // full matching with node sequence
-                    node.matchings.add(word, suffixStartIdx, suffixIdx);
-                } else {
-                    // partial matching
-                    // split nodes: leftNode contains full matching, rightNode have not matchings with suffix
-                    // and newNode matches with suffix tail
-                    Node<T> nodeLeft = node.newLeft(sequenceIdx);
-                    nodeLeft.matchings.add(word, suffixStartIdx, suffixIdx);
-
-                    Node<T> nodeRight = node.newRight(sequenceIdx);
-
-                    Node<T> newNode = new Node<>(suffix.subSequence(suffixIdx, suffix.length()));
-                    newNode.matchings.add(word, suffixIdx, suffix.length());
-
-                    nodeLeft.children.put(nodeRight.sequence.charAt(0), nodeRight);
-                    nodeRight.children.putAll(node.children);
-                    prevNode.children.put(nodeLeft.sequence.charAt(0), nodeLeft);
-                    nodeLeft.children.put(newNode.sequence.charAt(0), newNode);
-
-                    suffixIdx = suffix.length();
-                }
-
-                prevNode = node;
-            }
+        SuffixTreeBuilder builder = new SuffixTreeBuilder();
+        for (int id = 0; id < this.words.size(); id++) {
+            builder.addWord(id, this.words.get(id));
+        }
+        rootNode = builder.build();
+    }
 
-            if (suffixIdx < suffix.length()) {
-                Objects.requireNonNull(prevNode);
+    private static class Location {
+        final Node node;
+        /**
+         * number of matched symbols of node sequence
+         */
+        final int sequenceIdx;
 
-                // append new node for tail of suffix
-                Node<T> newNode = new Node<>(suffix.subSequence(suffixIdx, suffix.length()));
-                newNode.matchings.add(word, suffixIdx, suffix.length());
-                prevNode.children.put(newNode.sequence.charAt(0), newNode);
-            }
+        Location(Node node, int sequenceIdx) {
+            this.node = node;
+            this.sequenceIdx = sequenceIdx;
         }
-
     }
 
     /**
@@ -128,7 +74,36 @@ class SuffixTree<T extends CharSequence & Comparable<? super T>> implements Sear
     public MatchingResultSet<T> search(@NonNull CharSequence pattern) {
         pattern = pattern.length() == 0 ? TERMINAL_SYMBOL : pattern;
 
-        Node<T> node = rootNode;
+        Location location = locate(pattern);
+        if (location != null) {
+            // matches
+            long[] postings = location.node.postings;
+            return words.toResultSet(LongBuffer.wrap(postings), 0, postings.length,
+                location.sequenceIdx - pattern.length(), pattern.length());
+        }
+
+        return MatchingResultSet.emptyResultSet();
+    }
+
+    @Override
+    public Iterator<T> candidates(@NonNull CharSequence pattern) {
+        Location location = locate(pattern.length() == 0 ? TERMINAL_SYMBOL : pattern);
+        if (location != null) {
+            long[] postings = location.node.postings;
+            return words.toWords(LongBuffer.wrap(postings), 0, postings.length);
+        }
+
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public int estimate(@NonNull CharSequence pattern) {
+        Location location = locate(pattern.length() == 0 ? TERMINAL_SYMBOL : pattern);
+        return location != null ? location.node.postings.length : 0;
+    }
+
+    private Location locate(CharSequence pattern) {
+        Node node = rootNode;
         int patternIdx = 0;
         int sequenceIdx = 0;
 
@@ -148,11 +123,63 @@ class SuffixTree<T extends CharSequence & Comparable<? super T>> implements Sear
             }
         }
 
-        if (node != null && patternIdx == pattern.length()) {
-            // matches
-            return node.matchings.shift(sequenceIdx - pattern.length(), pattern.length());
+        return node != null && patternIdx == pattern.length() ? new Location(node, sequenceIdx) : null;
+    }
+
+    /**
+     * Compacts tree into flat immutable representation.
+     * Nodes are numbered in breadth-first order, so children of each node are stored contiguously
+     * and sorted by their first symbol.
+     *
+     * @return frozen suffix tree with the same search results
+     */
+    FrozenSuffixTree<T> freeze() {
+        // all words with terminal symbols, edge labels refer to it
+        int[] wordOffsets = new int[words.size()];
+        StringBuilder text = new StringBuilder();
+        for (int id = 0; id < words.size(); id++) {
+            wordOffsets[id] = text.length();
+            text.append(words.get(id)).append(TERMINAL_SYMBOL);
         }
 
-        return MatchingResultSet.emptyResultSet();
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(rootNode);
+        List<Node> children = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).children.forEach((c, child) -> children.add(child));
+            children.sort(Comparator.comparing(child -> child.sequence.charAt(0)));
+            nodes.addAll(children);
+            children.clear();
+        }
+
+        int count = nodes.size();
+        int[] labelOffsets = new int[count];
+        int[] labelLengths = new int[count];
+        int[] childrenOffsets = new int[count + 1];
+        int[] postingsOffsets = new int[count + 1];
+        long[] postings = new long[nodes.stream().mapToInt(node -> node.postings.length).sum()];
+
+        childrenOffsets[0] = 1;
+        for (int i = 0; i < count; i++) {
+            Node node = nodes.get(i);
+
+            if (node.postings.length > 0) {
+                // label is located within the word of any occurrence
+                long posting = node.postings[0];
+                labelOffsets[i] = wordOffsets[Postings.wordId(posting)] + Postings.index(posting);
+                labelLengths[i] = node.sequence.length();
+            }
+
+            childrenOffsets[i + 1] = childrenOffsets[i] + node.children.size();
+            postingsOffsets[i + 1] = postingsOffsets[i] + node.postings.length;
+            System.arraycopy(node.postings, 0, postings, postingsOffsets[i], node.postings.length);
+        }
+
+        char[] labels = new char[text.length()];
+        text.getChars(0, text.length(), labels, 0);
+
+        return new FrozenSuffixTree<>(words, IntBuffer.wrap(wordOffsets), CharBuffer.wrap(labels),
+            IntBuffer.wrap(labelOffsets), IntBuffer.wrap(labelLengths),
+            IntBuffer.wrap(childrenOffsets), IntBuffer.wrap(postingsOffsets), LongBuffer.wrap(postings));
     }
 }
@@ -0,0 +1,274 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds annotated suffix tree (AST) with using of Ukkonen's online algorithm generalized to many words.
+ * Every word (followed by terminal symbol) is inserted in time linear to its length by means of suffix links.
+ * Node annotations are collected in one pass after all words have been added.
+ *
+ * @author vlitvinenko
+ */
+class SuffixTreeBuilder {
+    private static final int OPEN_END = -1;
+
+    private static class Node {
+        final CharMap<Node> children = new CharMap<>();
+        final String text;
+        int start;
+        int end;
+        Node suffixLink;
+
+        /**
+         * suffixes that end within this node, encoded as (word id, suffix start) postings
+         */
+        long[] occurrences = Postings.EMPTY;
+        int occurrencesCount;
+
+        Node(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        void addOccurrence(int wordId, int suffixStart) {
+            ensureCapacity(occurrencesCount + 1);
+            occurrences[occurrencesCount++] = Postings.of(wordId, suffixStart);
+        }
+
+        void addOccurrences(long[] other, int count) {
+            ensureCapacity(occurrencesCount + count);
+            System.arraycopy(other, 0, occurrences, occurrencesCount, count);
+            occurrencesCount += count;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > occurrences.length) {
+                occurrences = Arrays.copyOf(occurrences, Math.max(capacity, occurrences.length * 2));
+            }
+        }
+    }
+
+    private static class Visit {
+        final Node node;
+        final Visit parent;
+        final int depth;
+        final SuffixTree.Node target;
+
+        Visit(Node node, Visit parent, int depth, SuffixTree.Node target) {
+            this.node = node;
+            this.parent = parent;
+            this.depth = depth;
+            this.target = target;
+        }
+    }
+
+    private final Node rootNode = new Node("", 0, 0);
+    private final List<Node> openLeaves = new ArrayList<>();
+
+    // state of current word processing
+    private String text;
+    private int currentEnd;
+    private Node activeNode;
+    private int activeEdge;
+    private int activeLength;
+    private int remainder;
+
+    /**
+     * Adds {@code word} and all its suffixes to the tree.
+     *
+     * @param wordId - word identifier
+     * @param word - word to be added
+     */
+    void addWord(int wordId, @NonNull CharSequence word) {
+        text = new StringBuilder(word) // to avoid Object.toString() calling
+            .append(SuffixTree.TERMINAL_SYMBOL)
+            .toString();
+
+        activeNode = rootNode;
+        activeEdge = 0;
+        activeLength = 0;
+        remainder = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            extend(wordId, i);
+        }
+
+        addImplicitSuffixes(wordId);
+
+        openLeaves.forEach(leaf -> leaf.end = text.length());
+        openLeaves.clear();
+    }
+
+    private void extend(int wordId, int i) {
+        char c = text.charAt(i);
+        currentEnd = i + 1;
+        remainder++;
+
+        Node lastNewNode = null;
+
+        while (remainder > 0) {
+            if (activeLength == 0) {
+                activeEdge = i;
+            }
+
+            Node next = activeNode.children.get(text.charAt(activeEdge));
+            if (next == null) {
+                // new leaf from active node
+                activeNode.children.put(c, newLeaf(wordId, i));
+                setSuffixLink(lastNewNode, activeNode);
+                lastNewNode = null;
+            } else {
+                if (walkDown(next)) {
+                    continue;
+                }
+
+                if (next.text.charAt(next.start + activeLength) == c) {
+                    // suffix is already in the tree
+                    setSuffixLink(lastNewNode, activeNode);
+                    activeLength++;
+                    break;
+                }
+
+                // split edge and append new leaf to the middle of it
+                Node splitNode = split(next);
+                splitNode.children.put(c, newLeaf(wordId, i));
+                setSuffixLink(lastNewNode, splitNode);
+                lastNewNode = splitNode;
+            }
+
+            remainder--;
+            moveToNextSuffix(i - remainder + 1, remainder - 1);
+        }
+    }
+
+    private void addImplicitSuffixes(int wordId) {
+        // suffixes that are left after the last extension are already present in the tree
+        // (e.g. they are suffixes of previously added words), so just annotate nodes they end within
+        currentEnd = text.length();
+
+        Node lastNewNode = null;
+
+        while (remainder > 0) {
+            Node node = activeNode;
+            Node splitNode = null;
+
+            if (activeLength > 0) {
+                Node next = activeNode.children.get(text.charAt(activeEdge));
+                if (walkDown(next)) {
+                    continue;
+                }
+                node = splitNode = split(next);
+            }
+
+            node.addOccurrence(wordId, text.length() - remainder);
+            setSuffixLink(lastNewNode, node);
+            lastNewNode = splitNode;
+
+            remainder--;
+            moveToNextSuffix(text.length() - remainder, remainder);
+        }
+    }
+
+    private Node newLeaf(int wordId, int i) {
+        Node leaf = new Node(text, i, OPEN_END);
+        leaf.addOccurrence(wordId, i - remainder + 1);
+        openLeaves.add(leaf);
+        return leaf;
+    }
+
+    private Node split(Node next) {
+        Node splitNode = new Node(next.text, next.start, next.start + activeLength);
+        activeNode.children.put(text.charAt(activeEdge), splitNode);
+
+        next.start += activeLength;
+        splitNode.children.put(next.text.charAt(next.start), next);
+        return splitNode;
+    }
+
+    private boolean walkDown(Node next) {
+        int length = edgeLength(next);
+        if (activeLength >= length) {
+            activeEdge += length;
+            activeLength -= length;
+            activeNode = next;
+            return true;
+        }
+        return false;
+    }
+
+    private void moveToNextSuffix(int suffixStart, int suffixLength) {
+        if (activeNode == rootNode) {
+            if (activeLength > 0) {
+                activeLength--;
+                activeEdge = suffixStart;
+            }
+        } else if (activeNode.suffixLink != null) {
+            activeNode = activeNode.suffixLink;
+        } else {
+            // no suffix link (e.g. node has been a leaf of another word), so rescan suffix from the root
+            activeNode = rootNode;
+            activeEdge = suffixStart;
+            activeLength = suffixLength;
+        }
+    }
+
+    private static void setSuffixLink(Node node, Node suffixLink) {
+        if (node != null) {
+            node.suffixLink = suffixLink;
+        }
+    }
+
+    private int edgeLength(Node node) {
+        return (node.end == OPEN_END ? currentEnd : node.end) - node.start;
+    }
+
+    /**
+     * Converts built tree into annotated one.
+     *
+     * @return root node of annotated suffix tree
+     */
+    SuffixTree.Node build() {
+        // breadth-first order, so parents always precede their children
+        List<Visit> visits = new ArrayList<>();
+        visits.add(new Visit(rootNode, null, 0, new SuffixTree.Node("")));
+
+        for (int i = 0; i < visits.size(); i++) {
+            Visit visit = visits.get(i);
+            int depth = visit.depth + edgeLength(visit.node);
+
+            visit.node.children.forEach((c, child) -> {
+                // edge label refers to the word text instead of copying, to keep construction linear
+                SuffixTree.Node target = new SuffixTree.Node(CharBuffer.wrap(child.text, child.start, child.end));
+                visit.target.children.put(c, target);
+                visits.add(new Visit(child, visit, depth, target));
+            });
+        }
+
+        // node annotation includes all suffixes that pass through the node, i.e. end within its subtree
+        for (int i = visits.size() - 1; i > 0; i--) {
+            Visit visit = visits.get(i);
+            Node node = visit.node;
+
+            // node postings are indexes of edge beginning within words
+            Arrays.sort(node.occurrences, 0, node.occurrencesCount);
+            long[] postings = Arrays.copyOf(node.occurrences, node.occurrencesCount);
+            for (int j = 0; j < postings.length; j++) {
+                postings[j] += visit.depth;
+            }
+            visit.target.postings = postings;
+
+            if (visit.parent.node != rootNode) {
+                visit.parent.node.addOccurrences(node.occurrences, node.occurrencesCount);
+            }
+            node.occurrences = null;
+        }
+
+        return visits.get(0).target;
+    }
+}
@@ -0,0 +1,124 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+/**
+ * Represents immutable sequence of small integer symbols with rank support, i.e. number of occurrences
+ * of symbol before position, used as Burrows-Wheeler transform of {@link FMIndex}.
+ * <p>
+ * It is the level-wise layout of wavelet tree: every level keeps one bit of each symbol, from the highest one,
+ * and sequence of the next level is the sequence of this level stably partitioned by that bit
+ * (symbols with zero bit first). So the tree takes {@code size * levels} bits and no pointers,
+ * access and rank take one bit vector rank per level.
+ *
+ * @author vlitvinenko
+ */
+final class WaveletMatrix {
+    final BitVector[] levels;
+    private final int size;
+    /**
+     * number of zero bits of each level
+     */
+    private final int[] zeros;
+    /**
+     * beginning of each symbol within ordering of the last level
+     */
+    private final int[] starts;
+
+    WaveletMatrix(@NonNull BitVector[] levels, int size) {
+        this.levels = levels;
+        this.size = size;
+
+        zeros = new int[levels.length];
+        for (int level = 0; level < levels.length; level++) {
+            zeros[level] = size - levels[level].rank(size);
+        }
+
+        starts = new int[1 << levels.length];
+        for (int symbol = 0; symbol < starts.length; symbol++) {
+            starts[symbol] = descend(symbol, 0);
+        }
+    }
+
+    /**
+     * Creates wavelet matrix of symbols.
+     *
+     * @param symbols - symbols, they are not modified
+     * @param levelCount - number of bits of symbols
+     * @return wavelet matrix
+     */
+    static WaveletMatrix of(@NonNull int[] symbols, int levelCount) {
+        BitVector[] levels = new BitVector[levelCount];
+        int[] current = symbols.clone();
+        int[] next = new int[symbols.length];
+
+        for (int level = 0; level < levelCount; level++) {
+            int shift = levelCount - level - 1;
+            long[] bits = new long[BitVector.wordCount(symbols.length)];
+            int zeroCount = 0;
+            for (int i = 0; i < current.length; i++) {
+                if ((current[i] >>> shift & 1) == 0) {
+                    zeroCount++;
+                } else {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            levels[level] = BitVector.of(bits);
+
+            int zero = 0;
+            int one = zeroCount;
+            for (int symbol : current) {
+                next[(symbol >>> shift & 1) == 0 ? zero++ : one++] = symbol;
+            }
+            int[] swap = current;
+            current = next;
+            next = swap;
+        }
+
+        return new WaveletMatrix(levels, symbols.length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param i - position
+     * @return symbol at position (high int) and number of its occurrences before position (low int)
+     */
+    long access(int i) {
+        int symbol = 0;
+        for (int level = 0; level < levels.length; level++) {
+            BitVector bits = levels[level];
+            if (bits.get(i)) {
+                symbol = symbol << 1 | 1;
+                i = zeros[level] + bits.rank(i);
+            } else {
+                symbol = symbol << 1;
+                i = i - bits.rank(i);
+            }
+        }
+        return (long) symbol << Integer.SIZE | i - starts[symbol];
+    }
+
+    /**
+     * @param symbol - symbol
+     * @param i - position, up to size inclusive
+     * @return number of occurrences of symbol before position
+     */
+    int rank(int symbol, int i) {
+        return descend(symbol, i) - starts[symbol];
+    }
+
+    private int descend(int symbol, int i) {
+        for (int level = 0; level < levels.length; level++) {
+            BitVector bits = levels[level];
+            if ((symbol >>> (levels.length - level - 1) & 1) == 0) {
+                i = i - bits.rank(i);
+            } else {
+                i = zeros[level] + bits.rank(i);
+            }
+        }
+        return i;
+    }
+}
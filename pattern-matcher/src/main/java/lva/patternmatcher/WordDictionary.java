@@ -0,0 +1,211 @@
+package lva.patternmatcher;
+
+import lombok.NonNull;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Interns words to dense integer identifiers.
+ * Identifiers are assigned in order of word length, words of the same length are ordered naturally,
+ * so postings sorted by identifier list the shortest words first.
+ * Equal words share the identifier of the first of them.
+ *
+ * @author vlitvinenko
+ */
+class WordDictionary<T extends CharSequence & Comparable<? super T>> {
+    private final List<T> words;
+    /**
+     * case boundaries of words, i.e. bitmaps of positions of symbols that are not lower case
+     */
+    private final long[] caseMasks;
+    /**
+     * beginning of case bitmap of each word within {@link #caseMasks}
+     */
+    private final int[] caseMaskOffsets;
+
+    private WordDictionary(List<T> words) {
+        this.words = words;
+
+        caseMaskOffsets = new int[words.size() + 1];
+        for (int id = 0; id < words.size(); id++) {
+            caseMaskOffsets[id + 1] = caseMaskOffsets[id] + (words.get(id).length() + Long.SIZE - 1) / Long.SIZE;
+        }
+
+        caseMasks = new long[caseMaskOffsets[words.size()]];
+        for (int id = 0; id < words.size(); id++) {
+            T word = words.get(id);
+            for (int i = 0; i < word.length(); i++) {
+                if (!Character.isLowerCase(word.charAt(i))) {
+                    caseMasks[caseMaskOffsets[id] + i / Long.SIZE] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates dictionary from arbitrary collection of words.
+     *
+     * @param words - words to be interned, {@code null}s are skipped
+     * @return dictionary
+     */
+    static <T extends CharSequence & Comparable<? super T>> WordDictionary<T> of(@NonNull Iterable<T> words) {
+        List<T> sortedWords = new ArrayList<>();
+        words.forEach(word -> {
+            if (Objects.nonNull(word)) {
+                sortedWords.add(word);
+            }
+        });
+        // sort is stable, so the first of equal words precedes others
+        sortedWords.sort(Comparator.naturalOrder());
+
+        List<T> distinctWords = new ArrayList<>(sortedWords.size());
+        for (T word : sortedWords) {
+            if (distinctWords.isEmpty() || distinctWords.get(distinctWords.size() - 1).compareTo(word) != 0) {
+                distinctWords.add(word);
+            }
+        }
+        distinctWords.sort(Searchable.LENGTH_ORDER);
+        return new WordDictionary<>(distinctWords);
+    }
+
+    /**
+     * Creates dictionary from distinct words that are already ordered by their identifiers.
+     *
+     * @param words - ordered words
+     * @return dictionary
+     */
+    static <T extends CharSequence & Comparable<? super T>> WordDictionary<T> ofOrdered(@NonNull List<T> words) {
+        return new WordDictionary<>(List.copyOf(words));
+    }
+
+    /**
+     * @return number of distinct words
+     */
+    int size() {
+        return words.size();
+    }
+
+    /**
+     * @param id - word identifier
+     * @return word by its identifier
+     */
+    T get(int id) {
+        return words.get(id);
+    }
+
+    /**
+     * Checks whether all symbols of word within range are lower case, by precomputed case boundaries.
+     *
+     * @param id - word identifier
+     * @param from - beginning of range, inclusive
+     * @param to - ending of range, exclusive, not greater than word length
+     * @return {@code true} if there are no symbols within range other than lower case ones
+     */
+    boolean isLowerCase(int id, int from, int to) {
+        int offset = caseMaskOffsets[id];
+        for (int i = from; i < to; i = (i / Long.SIZE + 1) * Long.SIZE) {
+            // shifts of long take 6 lower bits of index, i.e. position within bitmap word
+            long mask = caseMasks[offset + i / Long.SIZE] & (-1L << i);
+            if (to < (i / Long.SIZE + 1) * Long.SIZE) {
+                mask &= ~(-1L << to);
+            }
+            if (mask != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps range of postings to matching result set. Postings are not copied, result set is a view of them.
+     *
+     * @param postings - postings
+     * @param from - beginning of range, inclusive
+     * @param to - ending of range, exclusive
+     * @param offset - shift of each posting index
+     * @param length - length of each matching
+     * @return matching result set
+     */
+    MatchingResultSet<T> toResultSet(LongBuffer postings, int from, int to, int offset, int length) {
+        return MatchingResultSet.of(this, postings, from, to, offset, length);
+    }
+
+    /**
+     * Maps range of postings to distinct words, i.e. the shortest words first.
+     *
+     * @param postings - postings
+     * @param from - beginning of range, inclusive
+     * @param to - ending of range, exclusive
+     * @return lazy iterator over words
+     */
+    Iterator<T> toWords(LongBuffer postings, int from, int to) {
+        return new Iterator<T>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                // postings of the same word are adjacent
+                int wordId = Postings.wordId(postings.get(next));
+                do {
+                    next++;
+                } while (next < to && Postings.wordId(postings.get(next)) == wordId);
+
+                return words.get(wordId);
+            }
+        };
+    }
+
+    /**
+     * Maps bitmap of word identifiers to words, i.e. the shortest words first.
+     *
+     * @param marked - bitmap of identifiers, at least {@code size() / 64 + 1} longs
+     * @return lazy iterator over words
+     */
+    Iterator<T> toWords(long[] marked) {
+        return new Iterator<T>() {
+            private int block;
+            private long bits = marked.length > 0 ? marked[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (bits == 0 && block + 1 < marked.length) {
+                    bits = marked[++block];
+                }
+                return bits != 0;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                int wordId = (block << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                return words.get(wordId);
+            }
+        };
+    }
+
+    /**
+     * @return empty bitmap of word identifiers
+     */
+    long[] newBitmap() {
+        return new long[(words.size() >>> 6) + 1];
+    }
+}
@@ -0,0 +1,51 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author vlitvinenko
+ */
+public class BitVectorTest {
+
+    @Test
+    public void should_count_set_bits_before_position() {
+        Random random = new Random(42);
+        int size = 64 * BitVector.BLOCK_WORDS * 3 + 17;
+        boolean[] expected = new boolean[size];
+        long[] bits = new long[BitVector.wordCount(size)];
+        for (int i = 0; i < size; i++) {
+            expected[i] = random.nextInt(3) == 0;
+            if (expected[i]) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+
+        BitVector vector = BitVector.of(bits);
+        int rank = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(i + "", rank, vector.rank(i));
+            assertEquals(i + "", expected[i], vector.get(i));
+            rank += expected[i] ? 1 : 0;
+        }
+        assertEquals(rank, vector.rank(size));
+    }
+
+    @Test
+    public void should_count_bits_of_whole_blocks() {
+        long[] bits = new long[BitVector.BLOCK_WORDS];
+        bits[BitVector.BLOCK_WORDS - 1] = -1L;
+
+        BitVector vector = BitVector.of(bits);
+        assertEquals(0, vector.rank(64 * (BitVector.BLOCK_WORDS - 1)));
+        assertEquals(64, vector.rank(64 * BitVector.BLOCK_WORDS));
+    }
+
+    @Test
+    public void should_rank_empty_vector() {
+        assertEquals(0, BitVector.of(new long[0]).rank(0));
+    }
+}
@@ -0,0 +1,137 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class CalibratedEngineSelectorTest {
+    private static final long MB = 1 << 20;
+
+    private final CalibratedEngineSelector selector = new CalibratedEngineSelector(thresholds(), 400 * MB);
+
+    @Test
+    public void should_scan_small_collections() {
+        assertEquals(PatternMatcher.Engine.LINEAR_SCAN, selector.select(new CorpusStatistics(100, 1000, 60)));
+    }
+
+    @Test
+    public void should_choose_the_fastest_engine_that_fits_into_heap() {
+        // heap budget is 100 MB, build heap budget is 300 MB
+        assertEquals(PatternMatcher.Engine.SUFFIX_TREE, selector.select(new CorpusStatistics(100_000, MB, 60)));
+        assertEquals(PatternMatcher.Engine.SUFFIX_ARRAY, selector.select(new CorpusStatistics(1_000_000, 5 * MB, 60)));
+        assertEquals(PatternMatcher.Engine.FM_INDEX, selector.select(new CorpusStatistics(2_000_000, 12 * MB, 60)));
+    }
+
+    @Test
+    public void should_scan_words_if_fm_index_could_not_be_built() {
+        // FM-index takes about 60 MB, but its build takes 400 MB
+        CorpusStatistics statistics = new CorpusStatistics(3_000_000, 20 * MB, 60);
+
+        assertTrue(selector.estimateHeap(PatternMatcher.Engine.FM_INDEX, statistics) <= 100 * MB);
+        assertEquals(400 * MB, selector.estimateBuildHeap(statistics));
+        assertEquals(PatternMatcher.Engine.LINEAR_SCAN, selector.select(statistics));
+        assertEquals(PatternMatcher.Engine.LINEAR_SCAN, selector.select(new CorpusStatistics(100_000_000, 500 * MB, 60)));
+    }
+
+    @Test
+    public void should_estimate_fm_index_heap_by_alphabet() {
+        long small = selector.estimateHeap(PatternMatcher.Engine.FM_INDEX, new CorpusStatistics(1, MB, 3));
+        long large = selector.estimateHeap(PatternMatcher.Engine.FM_INDEX, new CorpusStatistics(1, MB, 60_000));
+
+        assertEquals((long) (MB * (2 + 2 * CalibratedEngineSelector.TRANSFORM_BYTES_PER_LEVEL)), small);
+        assertEquals((long) (MB * (2 + 16 * CalibratedEngineSelector.TRANSFORM_BYTES_PER_LEVEL)), large);
+    }
+
+    @Test
+    public void should_load_bundled_thresholds() {
+        CalibratedEngineSelector calibrated = CalibratedEngineSelector.getInstance();
+
+        assertEquals(PatternMatcher.Engine.LINEAR_SCAN, calibrated.select(new CorpusStatistics(10, 100, 10)));
+        assertNotEquals(PatternMatcher.Engine.LINEAR_SCAN, calibrated.select(new CorpusStatistics(100_000, 5 * MB, 60)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_missing_threshold() {
+        Properties thresholds = thresholds();
+        thresholds.remove("fmIndex.bytesPerChar");
+        new CalibratedEngineSelector(thresholds, MB);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_invalid_heap_fraction() {
+        Properties thresholds = thresholds();
+        thresholds.setProperty("buildHeapFraction", "1.5");
+        new CalibratedEngineSelector(thresholds, MB);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_invalid_threshold() {
+        Properties thresholds = thresholds();
+        thresholds.setProperty("suffixTree.bytesPerChar", "many");
+        new CalibratedEngineSelector(thresholds, MB);
+    }
+
+    @Test
+    public void should_collect_corpus_statistics() {
+        List<String> words = Arrays.asList("abc", null, "", "cd");
+
+        assertEquals(new CorpusStatistics(3, 5, 4), CorpusStatistics.of(words));
+    }
+
+    @Test
+    public void should_build_matcher_by_overridden_selector() {
+        List<String> words = List.of("AbcDef", "AbcDefGhj", "xyzAbcDef");
+        List<CorpusStatistics> selected = new ArrayList<>();
+
+        PatternMatcher<String> matcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.AUTO)
+            .setEngineSelector(statistics -> {
+                selected.add(statistics);
+                return PatternMatcher.Engine.SUFFIX_ARRAY;
+            })
+            .build();
+
+        assertEquals(List.of(new CorpusStatistics(3, 24, 12)), selected);
+        assertEquals(new PatternMatcher<>(words).match("*AD"), matcher.match("*AD"));
+    }
+
+    @Test
+    public void should_build_matcher_by_calibrated_selector() {
+        List<String> words = List.of("AbcDef", "AbcDefGhj", "xyzAbcDef");
+        PatternMatcher<String> matcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.AUTO)
+            .build();
+
+        assertTrue(matcher.match("AD").getResultSet().containsKey("AbcDefGhj"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_auto_engine_selected() {
+        new PatternMatcher.Builder<>(List.of("abc"))
+            .setEngine(PatternMatcher.Engine.AUTO)
+            .setEngineSelector(statistics -> PatternMatcher.Engine.AUTO)
+            .build();
+    }
+
+    private static Properties thresholds() {
+        Properties thresholds = new Properties();
+        thresholds.setProperty("linearScan.maxChars", "20000");
+        thresholds.setProperty("suffixTree.bytesPerChar", "50");
+        thresholds.setProperty("suffixArray.bytesPerChar", "10");
+        thresholds.setProperty("fmIndex.bytesPerChar", "2");
+        thresholds.setProperty("fmIndex.buildBytesPerChar", "20");
+        thresholds.setProperty("heapFraction", "0.25");
+        thresholds.setProperty("buildHeapFraction", "0.75");
+        return thresholds;
+    }
+}
@@ -0,0 +1,79 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author vlitvinenko
+ */
+public class CharMapTest {
+
+    @Test
+    public void should_return_put_values() {
+        CharMap<String> map = new CharMap<>();
+        map.put('b', "b");
+        map.put('a', "a");
+
+        assertEquals(2, map.size());
+        assertEquals("a", map.get('a'));
+        assertEquals("b", map.get('b'));
+    }
+
+    @Test
+    public void should_return_null_for_absent_key() {
+        CharMap<String> map = new CharMap<>();
+        assertNull(map.get('a'));
+
+        map.put('b', "b");
+        assertNull(map.get('a'));
+        assertNull(map.get('c'));
+    }
+
+    @Test
+    public void should_replace_value_for_same_key() {
+        CharMap<String> map = new CharMap<>();
+        map.put('a', "a");
+        map.put('a', "A");
+
+        assertEquals(1, map.size());
+        assertEquals("A", map.get('a'));
+    }
+
+    @Test
+    public void should_iterate_small_map_in_keys_order() {
+        CharMap<String> map = new CharMap<>();
+        map.put('c', "c");
+        map.put('a', "a");
+        map.put('b', "b");
+
+        StringBuilder keys = new StringBuilder();
+        map.forEach((key, value) -> keys.append(key));
+        assertEquals("abc", keys.toString());
+    }
+
+    @Test
+    public void should_behave_like_map_for_large_fan_out() {
+        Random random = new Random(42);
+        Map<Character, Integer> expected = new HashMap<>();
+        CharMap<Integer> map = new CharMap<>();
+
+        for (int i = 0; i < 1000; i++) {
+            char key = (char) random.nextInt(Character.MAX_VALUE + 1);
+            expected.put(key, i);
+            map.put(key, i);
+            assertEquals(expected.size(), map.size());
+        }
+
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+
+        Map<Character, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+}
@@ -0,0 +1,85 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author vlitvinenko
+ */
+public class CompiledPatternTest {
+    private final PatternMatcher<String> matcher = new PatternMatcher<>(
+        List.of("AbcDef", "AbcDefGhj", "xyzAbcDef")
+    );
+
+    @Test
+    public void should_return_same_matching_as_source_pattern() {
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ", "*f ", "")) {
+            assertEquals(pattern, matcher.match(pattern), matcher.match(matcher.compile(pattern)));
+        }
+    }
+
+    @Test
+    public void should_return_same_matching_for_repeated_matches() {
+        CompiledPattern pattern = matcher.compile("*AD");
+        assertEquals(matcher.match(pattern), matcher.match(pattern));
+    }
+
+    @Test
+    public void should_be_reusable_across_matchers() {
+        CompiledPattern pattern = matcher.compile("*AD");
+        PatternMatcher<String> otherMatcher = new PatternMatcher<>(List.of("xAyD", "AbcD", "Abc"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("AbcD", 0, 1)
+            .add("AbcD", 3, 4)
+            .add("xAyD", 1, 2)
+            .add("xAyD", 3, 4);
+        assertEquals(expected, otherMatcher.match(pattern));
+    }
+
+    @Test
+    public void should_not_depend_on_source_sequence_changes() {
+        StringBuilder source = new StringBuilder("Abc");
+        CompiledPattern pattern = matcher.compile(source);
+        source.setLength(0);
+        source.append("xyz");
+
+        assertEquals("Abc", pattern.getPattern());
+        assertEquals(matcher.match("Abc"), matcher.match(pattern));
+    }
+
+    @Test
+    public void should_be_equal_for_same_pattern() {
+        assertEquals(matcher.compile("A*b"), matcher.compile(new StringBuilder("A*b")));
+        assertNotEquals(matcher.compile("A*b"), matcher.compile("A*c"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void should_throw_exception_for_null_pattern() {
+        matcher.compile(null);
+    }
+
+    @Test
+    public void should_match_single_word_like_matcher() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbBc ", 300, 1, 11);
+        PatternMatcher<String> randomMatcher = new PatternMatcher<>(words);
+
+        for (String source : randomWords(random, "aAbB* ", 300, 0, 6)) {
+            CompiledPattern pattern = randomMatcher.compile(source);
+            Map<String, MatchingResultSet.MatchingEntries> resultSet = randomMatcher.match(pattern).getResultSet();
+
+            for (String word : words) {
+                assertEquals(pattern + " in " + word, Optional.ofNullable(resultSet.get(word)), pattern.match(word));
+            }
+        }
+    }
+}
@@ -3,6 +3,9 @@ package lva.patternmatcher;
 import lva.patternmatcher.PatternCommandTokenizer.Command;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static lva.patternmatcher.MatchingResultSet.emptyResultSet;
 import static org.junit.Assert.*;
 
@@ -107,5 +110,19 @@ public class ExpressionStrictPatternCommandTest {
         assertNotSame(resultSet, r);
     }
 
-
-}
\ No newline at end of file
+    @Test
+    public void should_combine_indexed_result_sets_like_arbitrary_ones() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of(
+            "AbcDefDef", "ADef", "AbDxDef", "abcD", "Ab" + "c".repeat(80) + "Def"));
+
+        for (String[] patterns : new String[][] {{"A", "D"}, {"b", "D"}, {"Ab", "De"}, {"c", "Def"}}) {
+            Command command = new ExpressionStrictPatternCommand(patterns[1]);
+            MatchingResultSet<String> l = tree.search(patterns[0]);
+            MatchingResultSet<String> r = tree.search(patterns[1]);
+
+            MatchingResultSet<String> expected = command.execute(
+                new MatchingResultSet<String>().addAll(l), new MatchingResultSet<String>().addAll(r));
+            assertEquals(Arrays.toString(patterns), expected, command.execute(l, r));
+        }
+    }
+}
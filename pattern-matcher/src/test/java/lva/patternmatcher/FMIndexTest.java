@@ -0,0 +1,126 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.assertExactEstimate;
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWord;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class FMIndexTest {
+
+    @Test
+    public void should_find_all_matches_of_substring() {
+        FMIndex<String> index = new SuffixArray<>(List.of("abababa", "xab")).compress();
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("abababa", 0, 2)
+            .add("abababa", 2, 4)
+            .add("abababa", 4, 6)
+            .add("xab", 1, 3);
+
+        assertEquals(expected, index.search("ab"));
+    }
+
+    @Test
+    public void should_find_all_words_for_empty_pattern() {
+        FMIndex<String> index = new SuffixArray<>(List.of("ab", "ac")).compress();
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 2, 3)
+            .add("ac", 2, 3);
+
+        assertEquals(expected, index.search(""));
+    }
+
+    @Test
+    public void should_not_match_across_words() {
+        FMIndex<String> index = new SuffixArray<>(List.of("ab", "cd")).compress();
+
+        assertTrue(index.search("b c").getResultSet().isEmpty());
+        assertTrue(index.search("b  ").getResultSet().isEmpty());
+        assertEquals(new MatchingResultSet<String>().add("ab", 1, 3), index.search("b "));
+    }
+
+    @Test
+    public void should_not_match_unknown_symbols() {
+        FMIndex<String> index = new SuffixArray<>(List.of("ab", "cd")).compress();
+
+        assertTrue(index.search("x").getResultSet().isEmpty());
+        assertTrue(index.search("ax").getResultSet().isEmpty());
+        assertEquals(0, index.estimate("xa"));
+    }
+
+    @Test
+    public void should_search_in_empty_index() {
+        FMIndex<String> index = new SuffixArray<>(List.<String>of()).compress();
+
+        assertTrue(index.search("a").getResultSet().isEmpty());
+        assertTrue(index.search("").getResultSet().isEmpty());
+        assertEquals(0, index.estimate("a"));
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // long words make suffixes to step back to sampled ones
+            words.add(randomWord(random, "abcAB ", random.nextInt(i % 10 == 0 ? 100 : 12)));
+        }
+
+        FMIndex<String> index = new SuffixArray<>(words).compress();
+
+        List<String> patterns = randomWords(random, "abcAB ", 1000, 0, 5);
+        assertSameAsBruteForce(words, index, patterns);
+        assertExactEstimate(words, index, patterns);
+    }
+
+    @Test
+    public void should_compress_words_same_as_suffix_array() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "abcAB ", 500, 0, 12);
+        FMIndex<String> index = SuffixArray.compress(words);
+
+        assertSameAsBruteForce(words, index, randomWords(random, "abcAB ", 1000, 0, 5));
+    }
+
+    @Test
+    public void should_extract_words() {
+        List<String> words = List.of("", "x", "ab", "a b", "AbcDef");
+        FMIndex<String> index = new SuffixArray<>(words).compress();
+
+        assertEquals(words, FMIndex.extractWords(words.size(), index.alphabet, index.blocks, index.transform));
+    }
+
+    @Test
+    public void should_return_candidates_shortest_first() {
+        FMIndex<String> index = new SuffixArray<>(List.of("xabab", "cab", "ab", "bab", "x")).compress();
+
+        assertEquals(List.of("ab", "bab", "cab", "xabab"), Utils.toList(index.candidates("ab")));
+        assertEquals(5, Utils.toList(index.candidates("")).size());
+        assertTrue(Utils.toList(index.candidates("abc")).isEmpty());
+    }
+
+    @Test
+    public void should_match_by_fm_index_engine() {
+        List<String> words = List.of("AbcDef", "AbcDefGhj", "xyzAbcDef", "AbCxd", "AbcCdef");
+        PatternMatcher<String> matcher = new PatternMatcher<>(words);
+        PatternMatcher<String> indexMatcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.FM_INDEX)
+            .build();
+
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ", "*C*d")) {
+            assertEquals(pattern, matcher.match(pattern), indexMatcher.match(pattern));
+        }
+    }
+}
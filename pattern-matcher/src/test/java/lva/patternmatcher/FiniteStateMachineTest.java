@@ -6,6 +6,7 @@ import org.junit.Test;
 import javax.management.RuntimeMBeanException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
@@ -82,5 +83,57 @@ public class FiniteStateMachineTest {
         assertEquals(State.S1, fsm.getCurrentState());
     }
 
+    @Test
+    public void should_throw_for_event_of_state_without_transitions() {
+        fsm.dispatch(Event.S1_TO_S3);
+        try {
+            fsm.dispatch(Event.S2_TO_S3);
+            fail();
+        } catch (IllegalArgumentException ignored) {}
+
+        assertEquals(State.S3, fsm.getCurrentState());
+    }
+
+    @Test
+    public void should_transit_by_not_enum_events() {
+        FiniteStateMachine<String, Character> charFsm = new FiniteStateMachine.Builder<String, Character>()
+            .addTransition("initial", "letter", 'a')
+            .addTransition("letter", "finished", 'b')
+            .setInitialState("initial")
+            .setFinishedState("finished")
+            .build();
+
+        charFsm.dispatch('a');
+        assertEquals("letter", charFsm.getCurrentState());
+        charFsm.dispatch('b');
+        assertTrue(charFsm.isFinished());
+    }
+
+    @Test
+    public void should_transit_by_events_of_different_enums() {
+        FiniteStateMachine<State, Enum<?>> mixedFsm = new FiniteStateMachine.Builder<State, Enum<?>>()
+            .addTransition(State.S1, State.S2, Event.S1_TO_S2)
+            .addTransition(State.S1, State.S3, State.S3)
+            .setInitialState(State.S1)
+            .setFinishedState(State.S3)
+            .build();
+
+        mixedFsm.dispatch(State.S3);
+        assertTrue(mixedFsm.isFinished());
 
-}
\ No newline at end of file
+        mixedFsm.reset();
+        mixedFsm.dispatch(Event.S1_TO_S2);
+        assertEquals(State.S2, mixedFsm.getCurrentState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_for_unexpected_not_enum_event() {
+        FiniteStateMachine<State, Object> objectFsm = new FiniteStateMachine.Builder<State, Object>()
+            .addTransition(State.S1, State.S2, Event.S1_TO_S2)
+            .setInitialState(State.S1)
+            .setFinishedState(State.S2)
+            .build();
+
+        objectFsm.dispatch("S1_TO_S2");
+    }
+}
@@ -0,0 +1,94 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.assertExactEstimate;
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class FrozenSuffixTreeTest {
+    /**
+     * wide alphabet to get large fan-out of root
+     */
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz";
+
+    @Test
+    public void should_find_all_matches_of_substring() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(List.of("abababa", "xab")).freeze();
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("abababa", 0, 2)
+            .add("abababa", 2, 4)
+            .add("abababa", 4, 6)
+            .add("xab", 1, 3);
+
+        assertEquals(expected, tree.search("ab"));
+    }
+
+    @Test
+    public void should_find_all_words_for_empty_pattern() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(List.of("ab", "ac")).freeze();
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 2, 3)
+            .add("ac", 2, 3);
+
+        assertEquals(expected, tree.search(""));
+    }
+
+    @Test
+    public void should_return_empty_result_for_unknown_substring() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(List.of("abc")).freeze();
+
+        assertTrue(tree.search("ac").getResultSet().isEmpty());
+        assertTrue(tree.search("d").getResultSet().isEmpty());
+    }
+
+    @Test
+    public void should_search_in_empty_tree() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(List.<String>of()).freeze();
+        assertTrue(tree.search("a").getResultSet().isEmpty());
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, ALPHABET, 500, 1, 13);
+        FrozenSuffixTree<String> frozenTree = new SuffixTree<>(words).freeze();
+
+        List<String> patterns = new ArrayList<>();
+        for (String pattern : randomWords(random, ALPHABET, 1000, 0, 5)) {
+            patterns.add(pattern);
+            patterns.add(pattern + " ");
+        }
+        assertSameAsBruteForce(words, frozenTree, patterns);
+        assertExactEstimate(words, frozenTree, patterns);
+    }
+
+    @Test
+    public void should_return_candidates_shortest_first() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(List.of("xabab", "cab", "ab", "bab", "x")).freeze();
+
+        assertEquals(List.of("ab", "bab", "cab", "xabab"), Utils.toList(tree.candidates("ab")));
+        assertEquals(5, Utils.toList(tree.candidates("")).size());
+        assertTrue(Utils.toList(tree.candidates("abc")).isEmpty());
+    }
+
+    @Test
+    public void should_estimate_number_of_occurrences() {
+        FrozenSuffixTree<String> tree = new SuffixTree<>(List.of("abab", "cab", "x")).freeze();
+
+        assertEquals(3, tree.estimate("ab"));
+        assertEquals(3, tree.estimate(""));
+        assertEquals(0, tree.estimate("abc"));
+    }
+}
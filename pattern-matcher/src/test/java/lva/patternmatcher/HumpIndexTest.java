@@ -0,0 +1,89 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.*;
+
+/**
+ * @author vlitvinenko
+ */
+public class HumpIndexTest {
+    private final List<String> words = List.of("NullPointerException", "NoPermissionError", "NPE", "AbcDef",
+        "AbcDefGhj", "xyzAbcDef", "Abc_Def", "Abc1Def", "Ab");
+    private final HumpIndex<String> humpIndex = new HumpIndex<>(words);
+
+    @Test
+    public void should_match_capital_letters() {
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("NullPointerException", 0, 1).add("NullPointerException", 4, 5).add("NullPointerException", 11, 12)
+            .add("NoPermissionError", 0, 1).add("NoPermissionError", 2, 3).add("NoPermissionError", 12, 13)
+            .add("NPE", 0, 1).add("NPE", 1, 2).add("NPE", 2, 3);
+
+        assertEquals(expected, humpIndex.match(compile("NPE")));
+    }
+
+    @Test
+    public void should_match_hump_prefixes() {
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("AbcDef", 0, 2).add("AbcDef", 3, 5)
+            .add("AbcDefGhj", 0, 2).add("AbcDefGhj", 3, 5);
+
+        assertEquals(expected, humpIndex.match(compile("AbDe")));
+    }
+
+    @Test
+    public void should_not_match_if_other_symbols_reside_between_humps() {
+        assertTrue(humpIndex.match(compile("AD")).getResultSet().keySet().containsAll(List.of("AbcDef", "AbcDefGhj")));
+        assertFalse(humpIndex.match(compile("AD")).getResultSet().containsKey("Abc_Def"));
+        assertFalse(humpIndex.match(compile("AD")).getResultSet().containsKey("Abc1Def"));
+    }
+
+    @Test
+    public void should_match_end_of_word() {
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("AbcDef", 0, 1).add("AbcDef", 3, 7);
+
+        assertEquals(expected, humpIndex.match(compile("ADef ")));
+    }
+
+    @Test
+    public void should_check_applicability_of_pattern() {
+        assertTrue(HumpIndex.isApplicable(compile("NPE")));
+        assertTrue(HumpIndex.isApplicable(compile("AbC")));
+        assertTrue(HumpIndex.isApplicable(compile("abcD")));
+        assertFalse(HumpIndex.isApplicable(compile("*NPE")));
+        assertFalse(HumpIndex.isApplicable(compile("N*PE")));
+        assertFalse(HumpIndex.isApplicable(compile("")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_exception_for_not_applicable_pattern() {
+        humpIndex.match(compile("*NPE"));
+    }
+
+    @Test
+    public void should_match_the_same_words_as_sequential_execution() {
+        Random random = new Random(42);
+        List<String> randomWords = randomWords(random, "aAbBcC1 ", 2000, 1, 13);
+        PatternMatcher<String> matcher = new PatternMatcher<>(randomWords);
+        HumpIndex<String> randomHumpIndex = new HumpIndex<>(randomWords);
+
+        int applicableCount = 0;
+        for (String pattern : randomWords(random, "aAbBcC1 ", 500, 1, 7)) {
+            CompiledPattern compiledPattern = compile(pattern);
+            if (HumpIndex.isApplicable(compiledPattern)) {
+                applicableCount++;
+                assertEquals(pattern, matcher.match(pattern), randomHumpIndex.match(compiledPattern));
+            }
+        }
+        assertTrue(applicableCount > 100);
+    }
+
+    private static CompiledPattern compile(String pattern) {
+        return CompiledPattern.compile(pattern, new PatternCommandTokenizerImpl());
+    }
+}
@@ -0,0 +1,216 @@
+package lva.patternmatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class IndexFileTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String ALPHABET = "aAbBc";
+
+    @Test
+    public void should_find_same_matches_after_reopening() throws IOException {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, ALPHABET, 500, 1, 13);
+
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(words).freeze(), path);
+
+        assertSameAsBruteForce(words, IndexFile.open(path), randomWords(random, ALPHABET, 1000, 0, 5));
+    }
+
+    @Test
+    public void should_save_opened_index() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.of("AbcDef", "xyz")).freeze(), path);
+
+        Path copyPath = folder.getRoot().toPath().resolve("copy");
+        IndexFile.save(IndexFile.open(path), copyPath);
+
+        assertEquals(new MatchingResultSet<String>().add("AbcDef", 3, 5), IndexFile.open(copyPath).search("De"));
+    }
+
+    @Test
+    public void should_open_empty_index() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.<String>of()).freeze(), path);
+
+        assertTrue(IndexFile.open(path).search("a").getResultSet().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_not_index_file() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, new byte[64]);
+        IndexFile.open(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_unsupported_version() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.of("abc")).freeze(), path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, IndexFile.VERSION + 1);
+        Files.write(path, bytes);
+
+        IndexFile.open(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_corrupted_file() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.of("abc")).freeze(), path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        IndexFile.verify(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_corrupted_file_by_default_loading() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        new PatternMatcher.Builder<>(List.of("abc")).build().save(path);
+        PatternMatcher.load(path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        PatternMatcher.load(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_corrupted_word_offsets() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.of("abc", "xyz")).freeze(), path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        // offset of the second word follows postings
+        buffer.putInt(32 + buffer.getInt(28) * Long.BYTES + Integer.BYTES, 1000);
+        Files.write(path, bytes);
+
+        IndexFile.open(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_corrupted_fm_index_blocks() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(SuffixArray.compress(List.of("abc", "xyz")), path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        // alphabet and samples are the last sections, blocks precede them
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int alphabetSize = buffer.getInt(24);
+        int sampleCount = buffer.getInt(28);
+        buffer.putInt(bytes.length - alphabetSize * Character.BYTES - (sampleCount + 1) * Integer.BYTES, 1000);
+        Files.write(path, bytes);
+
+        IndexFile.openFMIndex(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_truncated_file() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.of("abc")).freeze(), path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+
+        IndexFile.open(path);
+    }
+
+    @Test
+    public void should_find_same_matches_after_reopening_fm_index() throws IOException {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, ALPHABET, 500, 0, 12);
+
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixArray<>(words).compress(), path);
+
+        assertSameAsBruteForce(words, IndexFile.openFMIndex(path), randomWords(random, ALPHABET, 1000, 0, 5));
+    }
+
+    @Test
+    public void should_save_opened_fm_index() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixArray<>(List.of("AbcDef", "xyz")).compress(), path);
+
+        Path copyPath = folder.getRoot().toPath().resolve("copy");
+        IndexFile.save(IndexFile.openFMIndex(path), copyPath);
+
+        assertEquals(new MatchingResultSet<String>().add("AbcDef", 3, 5), IndexFile.openFMIndex(copyPath).search("De"));
+    }
+
+    @Test
+    public void should_open_empty_fm_index() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixArray<>(List.<String>of()).compress(), path);
+
+        assertTrue(IndexFile.openFMIndex(path).search("a").getResultSet().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_suffix_tree_file_as_fm_index() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixTree<>(List.of("abc")).freeze(), path);
+
+        IndexFile.openFMIndex(path);
+    }
+
+    @Test
+    public void should_open_index_by_magic() throws IOException {
+        Path treePath = folder.getRoot().toPath().resolve("tree");
+        IndexFile.save(new SuffixTree<>(List.of("AbcDef", "xyz")).freeze(), treePath);
+        Path fmPath = folder.getRoot().toPath().resolve("fm");
+        IndexFile.save(SuffixArray.compress(List.of("AbcDef", "xyz")), fmPath);
+
+        assertTrue(IndexFile.openIndex(treePath) instanceof FrozenSuffixTree);
+        assertTrue(IndexFile.openIndex(fmPath) instanceof FMIndex);
+        assertEquals(IndexFile.openIndex(treePath).search("De"), IndexFile.openIndex(fmPath).search("De"));
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_unknown_file_by_magic() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        Files.write(path, new byte[64]);
+
+        IndexFile.openIndex(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_corrupted_fm_index_file() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("index");
+        IndexFile.save(new SuffixArray<>(List.of("abc")).compress(), path);
+
+        IndexFile.verify(path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        IndexFile.verify(path);
+    }
+}
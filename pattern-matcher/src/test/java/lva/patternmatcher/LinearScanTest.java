@@ -0,0 +1,91 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.assertExactEstimate;
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class LinearScanTest {
+
+    @Test
+    public void should_find_all_matches_of_substring() {
+        LinearScan<String> scan = new LinearScan<>(List.of("abababa", "xab", "xyz"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("abababa", 0, 3)
+            .add("abababa", 2, 5)
+            .add("abababa", 4, 7);
+
+        assertEquals(expected, scan.search("aba"));
+        assertEquals(new MatchingResultSet<String>().add("xab", 1, 4), scan.search("ab "));
+    }
+
+    @Test
+    public void should_find_all_words_for_empty_pattern() {
+        LinearScan<String> scan = new LinearScan<>(List.of("ab", "ac"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 2, 3)
+            .add("ac", 2, 3);
+
+        assertEquals(expected, scan.search(""));
+    }
+
+    @Test
+    public void should_search_in_empty_collection() {
+        LinearScan<String> scan = new LinearScan<>(List.<String>of());
+
+        assertTrue(scan.search("a").getResultSet().isEmpty());
+        assertTrue(Utils.toList(scan.candidates("a")).isEmpty());
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "abcAB ", 500, 0, 12);
+        LinearScan<String> scan = new LinearScan<>(words);
+
+        List<String> patterns = randomWords(random, "abcAB ", 1000, 0, 5);
+        assertSameAsBruteForce(words, scan, patterns);
+        assertExactEstimate(words, scan, patterns);
+    }
+
+    @Test
+    public void should_return_candidates_shortest_first() {
+        LinearScan<String> scan = new LinearScan<>(List.of("xabab", "cab", "ab", "bab", "x"));
+
+        assertEquals(List.of("ab", "bab", "cab", "xabab"), Utils.toList(scan.candidates("ab")));
+        assertEquals(5, Utils.toList(scan.candidates("")).size());
+    }
+
+    @Test
+    public void should_match_same_words_by_parallel_chunks() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "abcAB ", 500, 0, 12);
+
+        PatternMatcher<String> matcher = new PatternMatcher<>(words);
+        LinearScan<String> scan = new LinearScan<>(words);
+        LinearScan<String> parallelScan = new LinearScan<>(words, 3);
+
+        for (String pattern : randomWords(random, "abcAB* ", 300, 0, 6)) {
+            PatternAutomaton automaton = matcher.compile(pattern).getAutomaton();
+            assertEquals(scan.match(automaton), parallelScan.match(automaton));
+        }
+        assertTrue(new LinearScan<>(List.<String>of(), 3).match(matcher.compile("a").getAutomaton())
+            .getResultSet().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_exception_for_invalid_parallelism() {
+        new LinearScan<>(List.of("a"), 0);
+    }
+}
@@ -0,0 +1,133 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author vlitvinenko
+ */
+public class MatchSessionTest {
+    private static final List<String> WORDS = List.of("AbcDef", "AbcDefGhj", "xyzAbcDef", "AbCxd", "AbcCdef");
+
+    private static final List<String> PATTERNS = List.of("", "A", "Ab", "AbC", "AbC*", "AbC*d", "AbC*d ", "AbC*d",
+        "AbC", "A", "*", "*A", "*AD", "*ADe", "*AD", "", "xyz", "AbcD", "AbxD", "AbcDe", "AbcDef", "AbcDe", "Ab",
+        "AbC*dx", "AbC", "*x", "*xy", "Abc*Def", "AbcCd", "Abc");
+
+    private final SuffixTree<String> suffixTree = new SuffixTree<>(WORDS);
+    private final List<CharSequence> searchedPatterns = new ArrayList<>();
+    private final Searchable<String> countingSearchable = new Searchable<String>() {
+        @Override
+        public MatchingResultSet<String> search(CharSequence pattern) {
+            searchedPatterns.add(pattern);
+            return suffixTree.search(pattern);
+        }
+
+        @Override
+        public int estimate(CharSequence pattern) {
+            return suffixTree.estimate(pattern);
+        }
+    };
+    private final PatternMatcher<String> matcher = new PatternMatcher<>(WORDS);
+    private final PatternMatcher<String> countingMatcher = new PatternMatcher<>(
+        PatternCommandTokenizerImpl::new, countingSearchable);
+
+    @Test
+    public void should_return_same_matching_as_matcher() {
+        assertSameMatching(matcher);
+    }
+
+    @Test
+    public void should_return_same_matching_as_matcher_of_any_engine() {
+        for (PatternMatcher.Engine engine : List.of(PatternMatcher.Engine.SUFFIX_ARRAY,
+                PatternMatcher.Engine.NGRAM_INDEX, PatternMatcher.Engine.LINEAR_SCAN)) {
+            assertSameMatching(new PatternMatcher.Builder<>(WORDS).setEngine(engine).build());
+        }
+        assertSameMatching(new PatternMatcher.Builder<>(WORDS).setHumpIndexEnabled(true).build());
+    }
+
+    @Test
+    public void should_execute_only_new_commands_for_extended_pattern() {
+        MatchSession<String> session = countingMatcher.newSession();
+        session.refine("Ab");
+        session.refine("AbC");
+        session.refine("AbC*");
+        session.refine("AbC*d");
+
+        assertEquals(List.of("Ab", "C", "d"), searchedPatterns);
+    }
+
+    @Test
+    public void should_execute_only_changed_commands() {
+        MatchSession<String> session = countingMatcher.newSession();
+        session.refine("Ab");
+        session.refine("AbC");
+        session.refine("AbD");
+
+        assertEquals(List.of("Ab", "C", "D"), searchedPatterns);
+    }
+
+    @Test
+    public void should_match_previous_words_for_extended_last_literal() {
+        MatchSession<String> session = countingMatcher.newSession();
+        session.refine("Ab");
+        assertEquals(matcher.match("Abc"), session.refine("Abc"));
+        assertEquals(matcher.match("AbcD"), session.refine("AbcD"));
+        assertEquals(matcher.match("AbcDe"), session.refine("AbcDe"));
+
+        assertEquals(List.of("Ab", "D"), searchedPatterns);
+    }
+
+    @Test
+    public void should_execute_pattern_as_whole_by_hump_index() {
+        PatternMatcher<String> humpMatcher = new PatternMatcher<>(
+            PatternCommandTokenizerImpl::new, countingSearchable, null, new HumpIndex<>(WORDS));
+        MatchSession<String> session = humpMatcher.newSession();
+
+        for (String pattern : List.of("A", "AD", "AbD", "A", "ADG")) {
+            assertEquals(pattern, matcher.match(pattern), session.refine(pattern));
+        }
+        assertEquals(List.of(), searchedPatterns);
+    }
+
+    @Test
+    public void should_not_execute_commands_for_truncated_pattern() {
+        MatchSession<String> session = countingMatcher.newSession();
+        MatchingResultSet<String> expected = session.refine("Ab");
+        session.refine("AbC");
+        searchedPatterns.clear();
+
+        assertEquals(expected, session.refine("Ab"));
+        assertEquals(List.of(), searchedPatterns);
+    }
+
+    @Test
+    public void should_discard_states_once_words_are_updated() {
+        PatternMatcher<String> updatableMatcher = new PatternMatcher.Builder<>(List.of("AbCd", "AbCde", "Abx"))
+            .setEngine(PatternMatcher.Engine.NGRAM_INDEX)
+            .build();
+        MatchSession<String> session = updatableMatcher.newSession();
+        session.refine("Ab");
+
+        updatableMatcher.addWord("AbCz");
+        updatableMatcher.removeWord("AbCd");
+        assertEquals(updatableMatcher.match("AbC"), session.refine("AbC"));
+        assertEquals(updatableMatcher.match("Ab"), session.refine("Ab"));
+    }
+
+    private static void assertSameMatching(PatternMatcher<String> matcher) {
+        MatchSession<String> session = matcher.newSession();
+        for (String pattern : PATTERNS) {
+            assertEquals(pattern, matcher.match(pattern), session.refine(pattern));
+            assertEquals(pattern, session.getPattern());
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void should_throw_exception_for_null_pattern() {
+        matcher.newSession().refine(null);
+    }
+}
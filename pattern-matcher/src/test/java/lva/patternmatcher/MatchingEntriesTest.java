@@ -4,6 +4,8 @@ import lva.patternmatcher.MatchingResultSet.Matching;
 import lva.patternmatcher.MatchingResultSet.MatchingEntries;
 import org.junit.Test;
 
+import java.nio.LongBuffer;
+
 import static org.junit.Assert.*;
 
 /**
@@ -134,5 +136,81 @@ public class MatchingEntriesTest {
         assertEquals(expected, entries.splitRight(10));
     }
 
+    @Test
+    public void should_return_bounds_by_index() {
+        MatchingEntries entries = new MatchingEntries()
+            .add(0, 1)
+            .add(3, 5);
+
+        assertEquals(2, entries.size());
+        assertEquals(3, entries.getFrom(1));
+        assertEquals(5, entries.getTo(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void should_fail_on_bounds_out_of_range() {
+        MatchingEntries entries = new MatchingEntries()
+            .add(0, 1);
+        entries.getFrom(1);
+    }
+
+    @Test
+    public void should_return_index_of_nearest_matching() {
+        MatchingEntries entries = new MatchingEntries()
+            .add(0, 1)
+            .add(4, 5)
+            .add(7, 8);
+
+        assertEquals(0, entries.findNearest(0));
+        assertEquals(1, entries.findNearest(2));
+        assertEquals(2, entries.findNearest(7));
+        assertEquals(3, entries.findNearest(8));
+    }
+
+    @Test
+    public void should_shift_matchings() {
+        MatchingEntries entries = new MatchingEntries()
+            .add(1, 4)
+            .add(2, 10);
+
+        MatchingEntries expected = new MatchingEntries()
+            .add(0, 2)
+            .add(1, 3);
+
+        assertEquals(expected, entries.shift(-1, 2));
+    }
+
+    @Test
+    public void should_not_change_original_entries_on_copy_extension() {
+        MatchingEntries entries = new MatchingEntries()
+            .add(0, 1);
+        MatchingEntries copy = new MatchingEntries(entries).add(2, 3);
+
+        assertEquals(1, entries.size());
+        assertEquals(2, copy.size());
+        assertNotEquals(entries, copy);
+        assertEquals(entries.hashCode(), new MatchingEntries().add(0, 1).hashCode());
+    }
+
+    @Test
+    public void should_read_postings_view_with_shift() {
+        LongBuffer postings = LongBuffer.wrap(new long[] {Postings.of(0, 1), Postings.of(1, 2), Postings.of(1, 5)});
+
+        MatchingEntries entries = MatchingEntries.view(postings, 1, 3, -1, 2);
+
+        assertEquals(new MatchingEntries().add(1, 3).add(4, 6), entries);
+        assertEquals(new MatchingEntries().add(1, 3).add(4, 6).hashCode(), entries.hashCode());
+        assertEquals(new MatchingEntries().add(2, 3).add(5, 6), entries.shift(1, 1));
+    }
+
+    @Test
+    public void should_copy_postings_view_on_add() {
+        LongBuffer postings = LongBuffer.wrap(new long[] {Postings.of(0, 1), Postings.of(0, 3)});
+        MatchingEntries entries = MatchingEntries.view(postings, 0, 2, 0, 1);
 
-}
\ No newline at end of file
+        entries.add(4, 5);
+
+        assertEquals(new MatchingEntries().add(1, 2).add(3, 4).add(4, 5), entries);
+        assertEquals(Postings.of(0, 3), postings.get(1));
+    }
+}
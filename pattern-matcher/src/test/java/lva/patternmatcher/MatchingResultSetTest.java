@@ -2,10 +2,14 @@ package lva.patternmatcher;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
-import static lva.patternmatcher.MatchingResultSet.emptyResultSet;
 import static lva.patternmatcher.Utils.getMatchingIndex;
+import static lva.patternmatcher.MatchingResultSet.emptyResultSet;
+import static lva.patternmatcher.Utils.randomWords;
 import static org.junit.Assert.*;
 
 /**
@@ -259,4 +263,65 @@ public class MatchingResultSetTest {
         assertEquals(expected, resultSet.shift(1, 2));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void should_combine_indexed_result_sets_like_arbitrary_ones() {
+        Random random = new Random(42);
+        SuffixTree<String> tree = new SuffixTree<>(randomWords(random, "abcdefgh", 3000, 1, 11));
+        MatchingResultSet.CombineFunction<String> nearest = (word, entriesLeft, entriesRight) ->
+            entriesLeft.getLastMatching()
+                .flatMap(entriesRight::findNearestMatching)
+                .map(matching -> new MatchingResultSet.MatchingEntries(entriesLeft).add(matching));
+
+        // dense and sparse sides
+        for (String[] patterns : new String[][] {{"a", "b"}, {"a", "hhg"}, {"abc", "d"}, {"abc", "fgh"}, {"a", "xyz"}}) {
+            MatchingResultSet<String> left = tree.search(patterns[0]);
+            MatchingResultSet<String> right = tree.search(patterns[1]);
+            MatchingResultSet<String> arbitraryLeft = new MatchingResultSet<String>().addAll(left);
+            MatchingResultSet<String> arbitraryRight = new MatchingResultSet<String>().addAll(right);
+
+            MatchingResultSet<String> expected = arbitraryLeft.combine(arbitraryRight, nearest);
+            assertEquals(Arrays.toString(patterns), expected, left.combine(right, nearest));
+            assertEquals(Arrays.toString(patterns), expected, left.combine(arbitraryRight, nearest));
+        }
+    }
+
+    @Test
+    public void should_transform_indexed_result_set() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("ab", "ba", "bab"));
+
+        MatchingResultSet<String> transformed = tree.search("b").transform((word, entries) ->
+            word.length() > 2 ? Optional.of(entries) : Optional.empty());
+
+        assertEquals(new MatchingResultSet<String>().add("bab", 0, 1).add("bab", 2, 3), transformed);
+    }
+
+    @Test
+    public void should_add_to_indexed_result_set() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("ab", "ba"));
+
+        MatchingResultSet<String> resultSet = tree.search("b").add("c", 0, 1);
+
+        assertEquals(new MatchingResultSet<String>().add("ab", 1, 2).add("ba", 0, 1).add("c", 0, 1), resultSet);
+    }
+
+    @Test
+    public void should_not_change_index_when_search_result_is_modified() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("abab", "ba"));
+
+        tree.search("b").add("abab", 5, 6);
+        tree.search("b").getResultSet().get("abab").add(4, 5);
+
+        assertEquals(new MatchingResultSet<String>().add("abab", 1, 2).add("abab", 3, 4).add("ba", 0, 1),
+            tree.search("b"));
+    }
+
+    @Test
+    public void should_shift_search_result() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("abab", "ba"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("abab", 0, 2).add("abab", 2, 4);
+        assertEquals(expected, tree.search("ab").shift(0, 2).splitRight(0));
+        assertEquals(expected, tree.freeze().search("b").shift(-1, 2).splitRight(0));
+    }
+}
@@ -0,0 +1,231 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static lva.patternmatcher.Utils.assertExactEstimate;
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWord;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class NGramIndexTest {
+
+    @Test
+    public void should_find_all_matches_of_substring() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("abababa", "xab", "abxab"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("abababa", 0, 4)
+            .add("abababa", 2, 6);
+
+        assertEquals(expected, index.search("abab"));
+        assertEquals(new MatchingResultSet<String>().add("abxab", 0, 5), index.search("abxab"));
+    }
+
+    @Test
+    public void should_find_all_words_for_empty_pattern() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("ab", "ac"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 2, 3)
+            .add("ac", 2, 3);
+
+        assertEquals(expected, index.search(""));
+    }
+
+    @Test
+    public void should_verify_candidates() {
+        // both trigrams of pattern are contained, but pattern is not
+        NGramIndex<String> index = new NGramIndex<>(List.of("abcxxxcde", "abcde"));
+
+        assertEquals(new MatchingResultSet<String>().add("abcde", 0, 5), index.search("abcde"));
+        assertEquals(List.of("abcde"), Utils.toList(index.candidates("abcde")));
+    }
+
+    @Test
+    public void should_not_match_across_words() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("ab", "cd"));
+
+        assertTrue(index.search("b c").getResultSet().isEmpty());
+        assertEquals(new MatchingResultSet<String>().add("ab", 1, 3), index.search("b "));
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "abcAB ", 500, 0, 12);
+        NGramIndex<String> index = new NGramIndex<>(words);
+
+        assertSameAsBruteForce(words, index, randomWords(random, "abcAB ", 1000, 0, 8));
+    }
+
+    @Test
+    public void should_add_and_remove_words() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("AbcDef", "xyz"));
+
+        assertTrue(index.add("DefGhj"));
+        assertFalse(index.add("xyz"));
+        assertTrue(index.remove("AbcDef"));
+        assertFalse(index.remove("AbcDef"));
+
+        assertEquals(2, index.size());
+        assertEquals(new MatchingResultSet<String>().add("DefGhj", 0, 3), index.search("Def"));
+        assertEquals(List.of("DefGhj"), Utils.toList(index.candidates("Def")));
+
+        assertTrue(index.add("AbcDef"));
+        assertEquals(List.of("AbcDef", "DefGhj"), Utils.toList(index.candidates("Def")));
+    }
+
+    @Test
+    public void should_verify_candidates_lazily() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("abcxxxcde", "abcde", "xabcde", "abcdexyz"));
+
+        Iterator<String> candidates = index.candidates("abcde");
+        assertEquals("abcde", candidates.next());
+        assertEquals("xabcde", candidates.next());
+        // removal does not affect candidates taken before
+        index.remove("abcdexyz");
+        assertEquals("abcdexyz", candidates.next());
+        assertFalse(candidates.hasNext());
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search_after_updates() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        NGramIndex<String> index = new NGramIndex<>(List.<String>of());
+        for (int i = 0; i < 2000; i++) {
+            // removal of random word makes index to be compacted from time to time
+            if (!words.isEmpty() && random.nextInt(3) == 0) {
+                assertTrue(index.remove(words.remove(random.nextInt(words.size()))));
+            } else {
+                String word = randomWord(random, "abcAB", 1 + random.nextInt(10));
+                if (index.add(word)) {
+                    words.add(word);
+                }
+            }
+        }
+
+        assertEquals(words.size(), index.size());
+        assertSameAsBruteForce(words, index, randomWords(random, "abcAB", 500, 0, 6));
+    }
+
+    @Test
+    public void should_estimate_by_the_least_occurrences_of_ngrams() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("abcdef", "abcxyz", "xabc", "abcabc"));
+
+        assertEquals(5, index.estimate("abc"));
+        assertEquals(1, index.estimate("abcdef"));
+        assertEquals(1, index.estimate("cabc"));
+        assertEquals(0, index.estimate("abq"));
+    }
+
+    @Test
+    public void should_estimate_short_literals_exactly() {
+        List<String> words = randomWords(new Random(13), "abcAB", 300, 1, 9);
+        NGramIndex<String> index = new NGramIndex<>(words);
+
+        assertExactEstimate(words, index, randomWords(new Random(17), "abcAB", 100, 0, NGramIndex.MAX_GRAM));
+    }
+
+    @Test
+    public void should_not_estimate_removed_words() {
+        NGramIndex<String> index = new NGramIndex<>(List.of("abcdef", "abcxyz", "xabc", "q", "xyzxyz"));
+        index.remove("abcxyz");
+
+        assertEquals(2, index.estimate("abc"));
+        assertEquals(2, index.estimate("xyz"));
+
+        index.add("abcxyz");
+        assertEquals(3, index.estimate("abc"));
+        assertEquals(3, index.estimate("xyz"));
+    }
+
+    @Test
+    public void should_defer_updates_until_query_is_completed() throws Exception {
+        NGramIndex<String> index = new NGramIndex<>(List.of("AbcDef"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> update = index.read(() -> {
+                Future<Boolean> future = executor.submit(() -> index.add("DefGhj"));
+                // update would be applied between searches, if it were not deferred
+                sleep(100);
+                assertFalse(future.isDone());
+                assertEquals(1, index.search("Def").getResultSet().size());
+                return future;
+            });
+
+            assertTrue(update.get());
+            assertEquals(2, index.search("Def").getResultSet().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void should_update_words_of_ngram_index_engine() {
+        PatternMatcher<String> indexMatcher = new PatternMatcher.Builder<>(List.of("AbcDef", "xyz"))
+            .setEngine(PatternMatcher.Engine.NGRAM_INDEX)
+            .setCacheSize(10)
+            .build();
+        assertEquals(new MatchingResultSet<String>().add("AbcDef", 0, 1).add("AbcDef", 3, 4), indexMatcher.match("AD"));
+
+        assertTrue(indexMatcher.addWord("AxD"));
+        assertFalse(indexMatcher.addWord("xyz"));
+        assertTrue(indexMatcher.removeWord("AbcDef"));
+        assertFalse(indexMatcher.removeWord("AbcDef"));
+
+        PatternMatcher<String> matcher = new PatternMatcher<>(List.of("AxD", "xyz"));
+        for (String pattern : List.of("AD", "*AD", "*x", "*", "f ")) {
+            assertEquals(pattern, matcher.match(pattern), indexMatcher.match(pattern));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_throw_exception_for_updating_not_ngram_index() {
+        new PatternMatcher<>(List.of("AbcDef")).addWord("xyz");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_throw_exception_for_updating_hump_index() {
+        new PatternMatcher.Builder<>(List.of("AbcDef"))
+            .setEngine(PatternMatcher.Engine.NGRAM_INDEX)
+            .setHumpIndexEnabled(true)
+            .build()
+            .removeWord("AbcDef");
+    }
+
+    @Test
+    public void should_match_by_ngram_index_engine() {
+        List<String> words = List.of("AbcDef", "AbcDefGhj", "xyzAbcDef", "AbCxd", "AbcCdef");
+        PatternMatcher<String> matcher = new PatternMatcher<>(words);
+        PatternMatcher<String> indexMatcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.NGRAM_INDEX)
+            .build();
+
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ", "*C*d")) {
+            assertEquals(pattern, matcher.match(pattern), indexMatcher.match(pattern));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
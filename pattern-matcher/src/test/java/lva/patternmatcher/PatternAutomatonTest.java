@@ -0,0 +1,71 @@
+package lva.patternmatcher;
+
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.executeSequentially;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author vlitvinenko
+ */
+public class PatternAutomatonTest {
+    private final PatternMatcher<String> matcher = new PatternMatcher<>(List.of("AbcDef"));
+
+    @Test
+    public void should_match_nearest_occurrences() {
+        assertEquals(new MatchingEntries().add(0, 1).add(3, 4), match("AD", "AbcDef"));
+        assertEquals(new MatchingEntries().add(3, 6), match("*Abc", "xyzAbcDef"));
+        assertEquals(new MatchingEntries().add(0, 1).add(5, 6), match("A*f", "AbcDefGhf"));
+        assertEquals(new MatchingEntries().add(1, 3).add(3, 5), match("*ab*ab", "aababab"));
+    }
+
+    @Test
+    public void should_match_terminal_symbol() {
+        assertEquals(new MatchingEntries().add(5, 7), match("*f ", "AbcDef"));
+        assertEquals(new MatchingEntries().add(6, 7), match("*", "AbcDef"));
+        assertNull(match("*b ", "AbcDef"));
+    }
+
+    @Test
+    public void should_not_match_strict_literal_after_capital_symbol() {
+        assertNull(match("AG", "AbcDefGhj"));
+        assertNull(match("Ab", "xAb"));
+        assertEquals(new MatchingEntries().add(0, 1).add(3, 5), match("ADe", "AbcDef"));
+    }
+
+    @Test
+    public void should_not_match_empty_pattern() {
+        assertNull(match("", "AbcDef"));
+    }
+
+    @Test
+    public void should_not_compile_unknown_commands() {
+        PatternCommandTokenizer.Command command = new BeginPatternCommand("A") {
+        };
+
+        assertNull(PatternAutomaton.of(List.of(command)));
+    }
+
+    @Test
+    public void should_return_same_matching_as_commands() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbBcC ", 1000, 1, 13);
+        PatternMatcher<String> randomMatcher = new PatternMatcher<>(words);
+        LinearScan<String> scan = new LinearScan<>(words);
+
+        for (String source : randomWords(random, "aAbBcC* ", 300, 0, 8)) {
+            CompiledPattern pattern = randomMatcher.compile(source);
+            assertEquals(source, executeSequentially(randomMatcher, pattern), scan.match(pattern.getAutomaton()));
+        }
+    }
+
+    private MatchingEntries match(String pattern, String word) {
+        return matcher.compile(pattern).getAutomaton().match(word);
+    }
+}
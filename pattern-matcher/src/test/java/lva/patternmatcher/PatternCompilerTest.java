@@ -0,0 +1,91 @@
+package lva.patternmatcher;
+
+import lva.patternmatcher.PatternCommandTokenizer.Command;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.*;
+
+/**
+ * @author vlitvinenko
+ */
+public class PatternCompilerTest {
+    private final PatternCommandTokenizer compiler = new PatternCompiler();
+
+    @Test
+    public void should_compile_strictly_concatenated_literals() {
+        assertEquals(List.of(
+            new BeginPatternCommand("Ab"),
+            new ExpressionStrictPatternCommand("C"),
+            new ExpressionStrictPatternCommand("De")
+        ), commands(compiler, "AbCDe"));
+    }
+
+    @Test
+    public void should_keep_the_first_capital_within_lower_case_literal() {
+        assertEquals(List.of(
+            new BeginPatternCommand("abCd"),
+            new ExpressionStrictPatternCommand("E")
+        ), commands(compiler, "abCdE"));
+    }
+
+    @Test
+    public void should_compile_any_concatenations() {
+        assertEquals(List.of(
+            new BeginAnyPatternCommand("a"),
+            new ExpressionAnyPatternCommand("Bc"),
+            new ExpressionAnyPatternCommand("d ")
+        ), commands(compiler, "**a*Bc**d "));
+    }
+
+    @Test
+    public void should_compile_asterisks_to_any_word() {
+        assertEquals(List.of(new BeginAnyPatternCommand("")), commands(compiler, "**"));
+        assertEquals(List.of(new BeginPatternCommand("a")), commands(compiler, "a*"));
+        assertEquals(List.of(), commands(compiler, ""));
+    }
+
+    @Test
+    public void should_compile_the_same_commands_as_tokenizer() {
+        PatternCommandTokenizer tokenizer = new PatternCommandTokenizerImpl();
+        Random random = new Random(42);
+        for (String pattern : randomWords(random, "aAbB1* ", 5000, 0, 10)) {
+            List<Command> expected = commands(tokenizer, pattern);
+            List<Command> actual = commands(compiler, pattern);
+            assertEquals(pattern, expected, actual);
+            assertEquals(pattern, expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void should_compare_literals_within_pattern_by_symbols() {
+        StringBuilder pattern = new StringBuilder("AbCDe");
+        List<Command> commands = commands(compiler, pattern);
+
+        assertEquals(new ExpressionStrictPatternCommand("De"), commands.get(2));
+        assertEquals(new ExpressionStrictPatternCommand("De").hashCode(), commands.get(2).hashCode());
+        assertEquals("De", commands.get(2).getPattern().toString());
+        assertEquals(2, commands.get(2).getPattern().length());
+    }
+
+    @Test
+    public void should_restart_with_new_pattern() {
+        compiler.restart("A*b*c*d*e*f");
+        compiler.nextCommand();
+
+        assertEquals(List.of(new BeginPatternCommand("Xy")), commands(compiler, "Xy"));
+    }
+
+    private static List<Command> commands(PatternCommandTokenizer tokenizer, CharSequence pattern) {
+        tokenizer.restart(pattern);
+        List<Command> commands = new ArrayList<>();
+        for (Command command = tokenizer.nextCommand(); command != null; command = tokenizer.nextCommand()) {
+            commands.add(command);
+        }
+        return commands;
+    }
+}
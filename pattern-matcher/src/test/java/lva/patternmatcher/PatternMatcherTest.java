@@ -1,18 +1,58 @@
 package lva.patternmatcher;
 
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static lva.patternmatcher.Utils.randomWord;
+import static lva.patternmatcher.Utils.randomWords;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 /**
+ * Every matching is checked against indexed words and against words scanned by automaton of the whole pattern.
+ *
  * @author vlitvinenko
  */
+@RunWith(Parameterized.class)
 public class PatternMatcherTest {
-    private final PatternMatcher<String> matcher = new PatternMatcher<>(
-        List.of("AbcDef", "AbcDefGhj", "xyzAbcDef")
-    );
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Parameterized.Parameter
+    public PatternMatcher.Engine engine;
+
+    private PatternMatcher<String> matcher;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<PatternMatcher.Engine> engines() {
+        return List.of(PatternMatcher.Engine.SUFFIX_TREE, PatternMatcher.Engine.LINEAR_SCAN);
+    }
+
+    @Before
+    public void setUp() {
+        matcher = newMatcher(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef"));
+    }
 
     @Test
     public void should_return_matching_for_pattern_begin() {
@@ -71,4 +111,231 @@ public class PatternMatcherTest {
         assertEquals(expected, resultSet);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void should_return_same_matching_for_parallel_build() {
+        PatternMatcher<String> parallelMatcher = newBuilder(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef"))
+            .setParallelism(2)
+            .build();
+
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ")) {
+            assertEquals(pattern, matcher.match(pattern), parallelMatcher.match(pattern));
+        }
+    }
+
+    @Test
+    public void should_return_same_matching_after_loading() throws IOException {
+        assumeTrue(engine == PatternMatcher.Engine.SUFFIX_TREE);
+
+        Path indexFile = folder.getRoot().toPath().resolve("index");
+        matcher.save(indexFile);
+        PatternMatcher<String> loadedMatcher = PatternMatcher.load(indexFile, true);
+
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ")) {
+            assertEquals(pattern, matcher.match(pattern), loadedMatcher.match(pattern));
+        }
+    }
+
+    @Test
+    public void should_return_same_matching_after_loading_fm_index() throws IOException {
+        assumeTrue(engine == PatternMatcher.Engine.SUFFIX_TREE);
+
+        PatternMatcher<String> fmMatcher = new PatternMatcher.Builder<>(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef"))
+            .setEngine(PatternMatcher.Engine.FM_INDEX)
+            .build();
+        Path indexFile = folder.getRoot().toPath().resolve("index");
+        fmMatcher.save(indexFile);
+        PatternMatcher<String> loadedMatcher = PatternMatcher.load(indexFile, true);
+
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ")) {
+            assertEquals(pattern, matcher.match(pattern), loadedMatcher.match(pattern));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_throw_exception_for_saving_not_persistent_index() throws IOException {
+        assumeTrue(engine == PatternMatcher.Engine.LINEAR_SCAN);
+
+        matcher.save(folder.getRoot().toPath().resolve("index"));
+    }
+
+    @Test
+    public void should_return_same_matching_for_concurrent_queries() throws Exception {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbBcC", 2000, 1, 13);
+        PatternMatcher<String> sharedMatcher = newMatcher(words);
+
+        List<String> patterns = randomWords(random, "aAbBcC* ", 200, 0, 6);
+        Map<String, MatchingResultSet<String>> expected = new HashMap<>();
+        patterns.forEach(pattern -> expected.put(pattern, sharedMatcher.match(pattern)));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Random threadRandom = new Random(seed);
+                    for (int i = 0; i < 2000; i++) {
+                        String pattern = patterns.get(threadRandom.nextInt(patterns.size()));
+                        assertEquals(pattern, expected.get(pattern), sharedMatcher.match(pattern));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void should_return_same_matching_for_cached_matcher() {
+        PatternMatcher<String> cachedMatcher = newBuilder(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef"))
+            .setCacheSize(2)
+            .build();
+
+        for (String pattern : List.of("Abc", "*AD", "Abc", "*AD", "**AD", "A*f")) {
+            assertEquals(pattern, matcher.match(pattern), cachedMatcher.match(pattern));
+        }
+        assertEquals(matcher.match("*AD"), cachedMatcher.match(cachedMatcher.compile("*AD")));
+
+        CacheStats stats = cachedMatcher.getCacheStats();
+        assertEquals(4, stats.getHitCount());
+        assertEquals(3, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+    }
+
+    @Test
+    public void should_return_empty_stats_for_matcher_without_cache() {
+        matcher.match("Abc");
+        assertEquals(CacheStats.EMPTY, matcher.getCacheStats());
+    }
+
+    @Test
+    public void should_return_top_ranked_words() {
+        PatternMatcher<String> rankedMatcher = newMatcher(
+            List.of("AbcDef", "AbcDefGhj", "xyzAbcDef", "AbcD", "AxxDef")
+        );
+
+        List<RankedResult<String>> results = rankedMatcher.match("AD", 3, Scorer.relevance());
+
+        assertEquals(List.of("AbcD", "AbcDef", "AxxDef"),
+            results.stream().map(RankedResult::getWord).collect(Collectors.toList()));
+        assertEquals(new MatchingResultSet.MatchingEntries().add(0, 1).add(3, 4), results.get(0).getEntries());
+        assertEquals(100 - 10 - 4, results.get(0).getScore(), 0);
+    }
+
+    @Test
+    public void should_return_same_top_ranked_words_as_sorted_matching() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbBcC", 2000, 1, 13);
+        PatternMatcher<String> randomMatcher = newMatcher(words);
+        PatternMatcher<String> shardedMatcher = newBuilder(words).setParallelism(3).build();
+        Scorer<String> boundlessScorer = (word, entries) -> word.charAt(word.length() / 2) - entries.getMatchings().size();
+
+        for (int i = 0; i < 200; i++) {
+            String pattern = randomWord(random, "aAbBcC* ", random.nextInt(6));
+            int k = 1 + random.nextInt(20);
+
+            for (Scorer<String> scorer : List.of(Scorer.<String>relevance(), boundlessScorer)) {
+                List<RankedResult<String>> expected = randomMatcher.match(pattern).getResultSet().entrySet().stream()
+                    .map(entry -> new RankedResult<>(entry.getKey(), entry.getValue(),
+                        scorer.score(entry.getKey(), entry.getValue())))
+                    .sorted(Comparator.comparingDouble(RankedResult<String>::getScore).reversed())
+                    .limit(k)
+                    .collect(Collectors.toList());
+
+                assertEquals(pattern, expected, randomMatcher.match(pattern, k, scorer));
+                assertEquals(pattern, expected, shardedMatcher.match(pattern, k, scorer));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_exception_for_invalid_number_of_ranked_words() {
+        matcher.match("A", 0, Scorer.relevance());
+    }
+
+    @Test
+    public void should_stream_same_matching_shortest_words_first() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbBcC", 2000, 1, 13);
+        PatternMatcher<String> randomMatcher = newMatcher(words);
+        PatternMatcher<String> shardedMatcher = newBuilder(words).setParallelism(3).build();
+
+        for (String pattern : randomWords(random, "aAbBcC* ", 200, 0, 6)) {
+            List<MatchedWord<String>> expected = randomMatcher.match(pattern).getResultSet().entrySet().stream()
+                .map(entry -> new MatchedWord<>(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(matchedWord -> matchedWord.getWord().length()))
+                .collect(Collectors.toList());
+
+            assertEquals(pattern, expected, randomMatcher.stream(pattern).collect(Collectors.toList()));
+            assertEquals(pattern, expected, shardedMatcher.stream(pattern).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void should_stream_pages() {
+        PatternMatcher<String> pagedMatcher = newMatcher(List.of("Ab", "xAb", "AbcD", "Axb", "AbcDef"));
+
+        assertEquals(List.of("xAb", "AbcD"), pagedMatcher.stream("*Ab").skip(1).limit(2)
+            .map(MatchedWord::getWord).collect(Collectors.toList()));
+        assertEquals(List.of("AbcDef"), pagedMatcher.stream("*Ab").skip(3).limit(2)
+            .map(MatchedWord::getWord).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_stream_lazily() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("Ab", "xAb", "AbcD", "Axb", "AbcDef"));
+        List<String> visitedCandidates = new ArrayList<>();
+        PatternMatcher<String> lazyMatcher = new PatternMatcher<>(PatternCommandTokenizerImpl::new, new Searchable<String>() {
+            @Override
+            public MatchingResultSet<String> search(CharSequence pattern) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Iterator<String> candidates(CharSequence pattern) {
+                Iterator<String> candidates = tree.candidates(pattern);
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return candidates.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        String candidate = candidates.next();
+                        visitedCandidates.add(candidate);
+                        return candidate;
+                    }
+                };
+            }
+        });
+
+        Stream<MatchedWord<String>> stream = lazyMatcher.stream("*Ab");
+        assertTrue(visitedCandidates.isEmpty());
+
+        assertEquals(List.of("Ab", "xAb"), stream.limit(2).map(MatchedWord::getWord).collect(Collectors.toList()));
+        assertEquals(List.of("Ab", "xAb"), visitedCandidates);
+    }
+
+    @Test
+    public void should_stream_nothing_for_empty_pattern() {
+        assertEquals(0, matcher.stream("").count());
+    }
+
+    private PatternMatcher<String> newMatcher(List<String> words) {
+        return newBuilder(words).build();
+    }
+
+    private PatternMatcher.Builder<String> newBuilder(List<String> words) {
+        return new PatternMatcher.Builder<>(words).setEngine(engine);
+    }
+}
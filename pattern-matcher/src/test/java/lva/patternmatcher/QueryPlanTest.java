@@ -0,0 +1,128 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.executeSequentially;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author vlitvinenko
+ */
+public class QueryPlanTest {
+    private final Searchable<String> searchable = new SuffixTree<>(
+        List.of("abXyz", "aaaa", "abab", "bab", "xyzab", "Xyzzy")
+    ).freeze();
+    private final PatternMatcher<String> matcher = new PatternMatcher<>(PatternCommandTokenizerImpl::new, searchable);
+
+    @Test
+    public void should_estimate_literals_by_occurrences() {
+        QueryPlan plan = matcher.explain("*a*Xyz");
+
+        assertEquals(List.of(
+            new QueryPlan.Step("BeginAnyPatternCommand", "a", 9),
+            new QueryPlan.Step("ExpressionAnyPatternCommand", "Xyz", 2)
+        ), plan.getSteps());
+    }
+
+    @Test
+    public void should_estimate_literals_by_occurrences_of_ngrams() {
+        PatternMatcher<String> ngramMatcher = new PatternMatcher.Builder<>(
+            List.of("abXyz", "aaaa", "abab", "bab", "xyzab", "Xyzzy")
+        ).setEngine(PatternMatcher.Engine.NGRAM_INDEX).build();
+
+        QueryPlan plan = ngramMatcher.explain("*a*Xyz");
+        assertEquals(matcher.explain("*a*Xyz").getSteps(), plan.getSteps());
+        assertEquals(QueryPlan.Strategy.CANDIDATES, plan.getStrategy());
+        assertEquals(1, plan.getCandidatesStep());
+    }
+
+    @Test
+    public void should_take_candidates_of_the_rarest_literal() {
+        QueryPlan plan = matcher.explain("*a*Xyz");
+
+        assertEquals(QueryPlan.Strategy.CANDIDATES, plan.getStrategy());
+        assertEquals(1, plan.getCandidatesStep());
+    }
+
+    @Test
+    public void should_execute_single_literal_sequentially() {
+        QueryPlan plan = matcher.explain("*a");
+
+        assertEquals(QueryPlan.Strategy.SEQUENTIAL, plan.getStrategy());
+        assertEquals(-1, plan.getCandidatesStep());
+    }
+
+    @Test
+    public void should_explain_plan() {
+        String expected = String.format("pattern '*a*Xyz': CANDIDATES%n" +
+            "  0: BeginAnyPatternCommand 'a', estimate 9%n" +
+            "  1: ExpressionAnyPatternCommand 'Xyz', estimate 2 <- candidates");
+        assertEquals(expected, matcher.explain("*a*Xyz").toString());
+    }
+
+    @Test
+    public void should_explain_empty_pattern() {
+        QueryPlan plan = matcher.explain("");
+
+        assertEquals(List.of(), plan.getSteps());
+        assertEquals(QueryPlan.Strategy.SEQUENTIAL, plan.getStrategy());
+    }
+
+    @Test
+    public void should_return_same_matching_for_both_strategies() {
+        Random random = new Random(42);
+        PatternMatcher<String> randomMatcher = new PatternMatcher<>(randomWords(random, "aAbBcC", 1000, 1, 13));
+
+        for (String source : randomWords(random, "aAbBcC* ", 300, 0, 8)) {
+            CompiledPattern pattern = randomMatcher.compile(source);
+            assertEquals(source, executeSequentially(randomMatcher, pattern), randomMatcher.match(pattern));
+        }
+    }
+
+    @Test
+    public void should_execute_capital_letters_by_hump_index() {
+        PatternMatcher<String> humpMatcher = new PatternMatcher.Builder<>(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef"))
+            .setHumpIndexEnabled(true)
+            .build();
+
+        assertEquals(QueryPlan.Strategy.HUMPS, humpMatcher.explain("AD").getStrategy());
+        assertNotEquals(QueryPlan.Strategy.HUMPS, humpMatcher.explain("*AD").getStrategy());
+        assertEquals(new MatchingResultSet<String>()
+            .add("AbcDef", 0, 1).add("AbcDef", 3, 4)
+            .add("AbcDefGhj", 0, 1).add("AbcDefGhj", 3, 4), humpMatcher.match("AD"));
+    }
+
+    @Test
+    public void should_execute_linear_scan_by_automaton() {
+        PatternMatcher<String> scanMatcher = new PatternMatcher.Builder<>(List.of("AbcDef", "AbcDefGhj", "xyzAbcDef"))
+            .setEngine(PatternMatcher.Engine.LINEAR_SCAN)
+            .build();
+
+        assertEquals(QueryPlan.Strategy.SCAN, scanMatcher.explain("*AD").getStrategy());
+        assertEquals(new MatchingResultSet<String>()
+            .add("AbcDef", 0, 1).add("AbcDef", 5, 6)
+            .add("AbcDefGhj", 0, 1).add("AbcDefGhj", 5, 6), scanMatcher.match("A*f"));
+    }
+
+    @Test
+    public void should_explain_scan_without_estimates() {
+        LinearScan<String> scan = new LinearScan<>(List.of("AbcDef", "xyzAbcDef")) {
+            @Override
+            public int estimate(CharSequence pattern) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        PatternMatcher<String> scanMatcher = new PatternMatcher<>(PatternCompiler::new, scan);
+
+        String expected = String.format("pattern '*AD': SCAN%n" +
+            "  0: BeginAnyPatternCommand 'A'%n" +
+            "  1: ExpressionStrictPatternCommand 'D'");
+        assertEquals(expected, scanMatcher.explain("*AD").toString());
+        assertEquals(-1, scanMatcher.explain("*AD").getSteps().get(0).getEstimate());
+    }
+}
@@ -0,0 +1,97 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author vlitvinenko
+ */
+public class ResultCacheTest {
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private Supplier<MatchingResultSet<String>> loader(int matchingCount) {
+        return () -> {
+            loadCount.incrementAndGet();
+            MatchingResultSet<String> resultSet = new MatchingResultSet<>();
+            for (int i = 0; i < matchingCount; i++) {
+                resultSet.add("word" + i, 0, 1);
+            }
+            return resultSet;
+        };
+    }
+
+    @Test
+    public void should_return_cached_result_set() {
+        ResultCache<String> cache = new ResultCache<>(10, Long.MAX_VALUE);
+        MatchingResultSet<String> resultSet = cache.get("ab", loader(1));
+
+        assertSame(resultSet, cache.get("ab", loader(1)));
+        assertEquals(1, loadCount.get());
+        assertEquals(new CacheStats(1, 1, 0, 1, 2), cache.getStats());
+    }
+
+    @Test
+    public void should_use_same_key_for_repeated_asterisks() {
+        ResultCache<String> cache = new ResultCache<>(10, Long.MAX_VALUE);
+        cache.get("**a***b*", loader(1));
+        cache.get("*a*b*", loader(1));
+
+        assertEquals(1, loadCount.get());
+        assertEquals("*a*b*", ResultCache.normalize("**a***b**"));
+    }
+
+    @Test
+    public void should_evict_least_recently_used_result_set_by_size() {
+        ResultCache<String> cache = new ResultCache<>(2, Long.MAX_VALUE);
+        cache.get("a", loader(1));
+        cache.get("b", loader(1));
+        cache.get("a", loader(1));
+        cache.get("c", loader(1));
+
+        assertEquals(3, loadCount.get());
+        cache.get("a", loader(1));
+        assertEquals(3, loadCount.get());
+        cache.get("b", loader(1));
+        assertEquals(4, loadCount.get());
+        assertEquals(2, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void should_evict_result_sets_by_weight() {
+        ResultCache<String> cache = new ResultCache<>(10, 10);
+        cache.get("a", loader(4));
+        cache.get("b", loader(4));
+        cache.get("c", loader(4));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(10, stats.getWeight());
+        assertEquals(1, stats.getEvictionCount());
+    }
+
+    @Test
+    public void should_not_cache_result_set_heavier_than_max_weight() {
+        ResultCache<String> cache = new ResultCache<>(10, 10);
+        cache.get("a", loader(1));
+        cache.get("b", loader(20));
+        cache.get("b", loader(20));
+
+        assertEquals(3, loadCount.get());
+        assertEquals(new CacheStats(0, 3, 0, 1, 2), cache.getStats());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_exception_for_invalid_size() {
+        new ResultCache<String>(0, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_exception_for_invalid_weight() {
+        new ResultCache<String>(10, 0);
+    }
+}
@@ -0,0 +1,48 @@
+package lva.patternmatcher;
+
+import lva.patternmatcher.MatchingResultSet.MatchingEntries;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class ScorerTest {
+    private final Scorer<String> scorer = Scorer.relevance();
+
+    @Test
+    public void should_prefer_prefix_matching() {
+        double prefixScore = scorer.score("AbcDef", new MatchingEntries().add(0, 3));
+        double infixScore = scorer.score("xAbcDe", new MatchingEntries().add(1, 4));
+        assertTrue(prefixScore > infixScore);
+    }
+
+    @Test
+    public void should_penalize_gaps_between_matchings() {
+        double adjacentScore = scorer.score("AbcDef", new MatchingEntries().add(0, 3).add(3, 4));
+        double gapScore = scorer.score("AbcDef", new MatchingEntries().add(0, 1).add(3, 4));
+        assertEquals(10, adjacentScore - gapScore, 0);
+    }
+
+    @Test
+    public void should_prefer_shorter_words() {
+        double shortScore = scorer.score("Abc", new MatchingEntries().add(0, 1));
+        double longScore = scorer.score("Abcd", new MatchingEntries().add(0, 1));
+        assertTrue(shortScore > longScore);
+    }
+
+    @Test
+    public void should_not_exceed_upper_bound() {
+        String word = "AbcDef";
+        assertEquals(scorer.upperBound(word.length()), scorer.score(word, new MatchingEntries().add(0, 6)), 0);
+        assertTrue(scorer.upperBound(word.length() + 1) < scorer.upperBound(word.length()));
+    }
+
+    @Test
+    public void should_not_bound_custom_scorer() {
+        Scorer<String> custom = (word, entries) -> 0;
+        assertEquals(Double.POSITIVE_INFINITY, custom.upperBound(1), 0);
+    }
+}
@@ -0,0 +1,65 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author vlitvinenko
+ */
+public class ShardedSearchableTest {
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbBc", 500, 1, 13);
+        // equal words in different shards
+        words.addAll(words.subList(0, 50));
+
+        ShardedSearchable<String> sharded = ShardedSearchable.build(words, 4, SuffixTree::new);
+
+        assertSameAsBruteForce(words, sharded, randomWords(random, "aAbBc", 500, 0, 4));
+    }
+
+    @Test
+    public void should_search_within_all_shards() {
+        ShardedSearchable<String> sharded = ShardedSearchable.build(List.of("ab", "cab", "abc", "d"), 3, SuffixTree::new);
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 0, 2)
+            .add("abc", 0, 2)
+            .add("cab", 1, 3);
+
+        assertEquals(expected, sharded.search("ab"));
+    }
+
+    @Test
+    public void should_build_for_more_shards_than_words() {
+        ShardedSearchable<String> sharded = ShardedSearchable.build(List.of("ab"), 8, SuffixTree::new);
+        assertEquals(new MatchingResultSet<String>().add("ab", 1, 2), sharded.search("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_for_invalid_parallelism() {
+        ShardedSearchable.build(List.of("ab"), 0, SuffixTree::new);
+    }
+
+    @Test
+    public void should_merge_candidates_of_all_shards() {
+        ShardedSearchable<String> sharded = ShardedSearchable.build(
+            List.of("xabab", "ab", "cab", "ab", "bab", "x", "ab"), 3, SuffixTree::new);
+
+        assertEquals(List.of("ab", "bab", "cab", "xabab"), Utils.toList(sharded.candidates("ab")));
+    }
+
+    @Test
+    public void should_sum_estimates_of_all_shards() {
+        ShardedSearchable<String> sharded = ShardedSearchable.build(List.of("abab", "cab", "x"), 3, SuffixTree::new);
+        assertEquals(3, sharded.estimate("ab"));
+    }
+}
@@ -0,0 +1,100 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static lva.patternmatcher.Utils.assertExactEstimate;
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.randomWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class SuffixArrayTest {
+
+    @Test
+    public void should_find_all_matches_of_substring() {
+        SuffixArray<String> array = new SuffixArray<>(List.of("abababa", "xab"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("abababa", 0, 2)
+            .add("abababa", 2, 4)
+            .add("abababa", 4, 6)
+            .add("xab", 1, 3);
+
+        assertEquals(expected, array.search("ab"));
+    }
+
+    @Test
+    public void should_find_all_words_for_empty_pattern() {
+        SuffixArray<String> array = new SuffixArray<>(List.of("ab", "ac"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 2, 3)
+            .add("ac", 2, 3);
+
+        assertEquals(expected, array.search(""));
+    }
+
+    @Test
+    public void should_not_match_across_words() {
+        SuffixArray<String> array = new SuffixArray<>(List.of("ab", "cd"));
+
+        assertTrue(array.search("b c").getResultSet().isEmpty());
+        assertTrue(array.search("b  ").getResultSet().isEmpty());
+        assertEquals(new MatchingResultSet<String>().add("ab", 1, 3), array.search("b "));
+    }
+
+    @Test
+    public void should_search_in_empty_array() {
+        SuffixArray<String> array = new SuffixArray<>(List.<String>of());
+        assertTrue(array.search("a").getResultSet().isEmpty());
+        assertEquals(0, array.estimate("a"));
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "abcAB ", 500, 1, 13);
+        SuffixArray<String> array = new SuffixArray<>(words);
+
+        List<String> patterns = randomWords(random, "abcAB ", 1000, 0, 5);
+        assertSameAsBruteForce(words, array, patterns);
+        assertExactEstimate(words, array, patterns);
+    }
+
+    @Test
+    public void should_return_candidates_shortest_first() {
+        SuffixArray<String> array = new SuffixArray<>(List.of("xabab", "cab", "ab", "bab", "x"));
+
+        assertEquals(List.of("ab", "bab", "cab", "xabab"), Utils.toList(array.candidates("ab")));
+        assertEquals(5, Utils.toList(array.candidates("")).size());
+        assertTrue(Utils.toList(array.candidates("abc")).isEmpty());
+    }
+
+    @Test
+    public void should_estimate_number_of_occurrences() {
+        SuffixArray<String> array = new SuffixArray<>(List.of("abab", "cab", "x"));
+
+        assertEquals(3, array.estimate("ab"));
+        assertEquals(3, array.estimate(""));
+        assertEquals(0, array.estimate("abc"));
+    }
+
+    @Test
+    public void should_match_by_suffix_array_engine() {
+        List<String> words = List.of("AbcDef", "AbcDefGhj", "xyzAbcDef", "AbCxd", "AbcCdef");
+        PatternMatcher<String> matcher = new PatternMatcher<>(words);
+        PatternMatcher<String> arrayMatcher = new PatternMatcher.Builder<>(words)
+            .setEngine(PatternMatcher.Engine.SUFFIX_ARRAY)
+            .build();
+
+        for (String pattern : List.of("Abc", "*Abc", "AD", "*AD", "A*f", "*", "f ", "*C*d")) {
+            assertEquals(pattern, matcher.match(pattern), arrayMatcher.match(pattern));
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package lva.patternmatcher;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author vlitvinenko
@@ -28,5 +36,82 @@ class Utils {
 
         return -1;
     }
-}
 
+    static <T> List<T> toList(Iterator<T> iterator) {
+        List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    static String randomWord(Random random, String alphabet, int length) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
+
+    /**
+     * @return random words of symbols of {@code alphabet}, each of length within {@code [minLength, maxLength)}
+     */
+    static List<String> randomWords(Random random, String alphabet, int count, int minLength, int maxLength) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            words.add(randomWord(random, alphabet, minLength + random.nextInt(maxLength - minLength)));
+        }
+        return words;
+    }
+
+    /**
+     * Searches for occurrences of pattern within every distinct word followed by terminal symbol, by brute force.
+     */
+    static MatchingResultSet<String> bruteForceSearch(List<String> words, String pattern) {
+        String substring = pattern.isEmpty() ? " " : pattern;
+        MatchingResultSet<String> resultSet = new MatchingResultSet<>();
+        for (String word : new LinkedHashSet<>(words)) {
+            String text = word + " ";
+            for (int i = text.indexOf(substring); i >= 0; i = text.indexOf(substring, i + 1)) {
+                resultSet.add(word, i, i + substring.length());
+            }
+        }
+        return resultSet;
+    }
+
+    /**
+     * Checks that searchable finds the same occurrences and candidates of each pattern as brute force search does.
+     */
+    static void assertSameAsBruteForce(List<String> words, Searchable<String> searchable, List<String> patterns) {
+        for (String pattern : patterns) {
+            MatchingResultSet<String> expected = bruteForceSearch(words, pattern);
+            assertEquals(pattern, expected, searchable.search(pattern));
+
+            List<String> candidates = expected.getResultSet().keySet().stream()
+                .sorted(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+            assertEquals(pattern, candidates, toList(searchable.candidates(pattern)));
+        }
+    }
+
+    /**
+     * Checks that searchable estimates each pattern by exact number of its occurrences.
+     */
+    static void assertExactEstimate(List<String> words, Searchable<String> searchable, List<String> patterns) {
+        for (String pattern : patterns) {
+            int occurrences = bruteForceSearch(words, pattern).getResultSet().values().stream()
+                .mapToInt(MatchingResultSet.MatchingEntries::size)
+                .sum();
+            assertEquals(pattern, occurrences, searchable.estimate(pattern));
+        }
+    }
+
+    /**
+     * Executes commands of pattern one by one from left to right, regardless of query plan.
+     */
+    static MatchingResultSet<String> executeSequentially(PatternMatcher<String> matcher, CompiledPattern pattern) {
+        MatchingResultSet<String> resultSet = new MatchingResultSet<>();
+        for (PatternCommandTokenizer.Command command : pattern.getCommands()) {
+            resultSet = matcher.execute(command, resultSet);
+        }
+        return resultSet;
+    }
+}
@@ -0,0 +1,55 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author vlitvinenko
+ */
+public class WaveletMatrixTest {
+
+    @Test
+    public void should_access_and_rank_symbols() {
+        Random random = new Random(42);
+        int[] symbols = new int[1000];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = random.nextInt(11);
+        }
+
+        WaveletMatrix matrix = WaveletMatrix.of(symbols, 4);
+        int[] ranks = new int[16];
+        for (int i = 0; i < symbols.length; i++) {
+            long access = matrix.access(i);
+            assertEquals(symbols[i], (int) (access >>> Integer.SIZE));
+            assertEquals(ranks[symbols[i]], (int) access);
+            for (int symbol = 0; symbol < ranks.length; symbol++) {
+                assertEquals(ranks[symbol], matrix.rank(symbol, i));
+            }
+            ranks[symbols[i]]++;
+        }
+
+        for (int symbol = 0; symbol < ranks.length; symbol++) {
+            assertEquals(ranks[symbol], matrix.rank(symbol, symbols.length));
+        }
+    }
+
+    @Test
+    public void should_not_modify_symbols() {
+        int[] symbols = {3, 1, 2, 0};
+        WaveletMatrix.of(symbols, 2);
+
+        assertEquals(3, symbols[0]);
+        assertEquals(0, symbols[3]);
+    }
+
+    @Test
+    public void should_rank_empty_matrix() {
+        WaveletMatrix matrix = WaveletMatrix.of(new int[0], 1);
+
+        assertEquals(0, matrix.size());
+        assertEquals(0, matrix.rank(1, 0));
+    }
+}
@@ -0,0 +1,95 @@
+package lva.patternmatcher;
+
+import org.junit.Test;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author vlitvinenko
+ */
+public class WordDictionaryTest {
+
+    @Test
+    public void should_assign_ids_in_length_and_words_order() {
+        WordDictionary<String> dictionary = WordDictionary.of(List.of("ca", "c", "a", "ab", "b"));
+
+        assertEquals(5, dictionary.size());
+        assertEquals("a", dictionary.get(0));
+        assertEquals("b", dictionary.get(1));
+        assertEquals("c", dictionary.get(2));
+        assertEquals("ab", dictionary.get(3));
+        assertEquals("ca", dictionary.get(4));
+    }
+
+    @Test
+    public void should_map_postings_to_distinct_words() {
+        WordDictionary<String> dictionary = WordDictionary.of(List.of("a", "b", "c"));
+        LongBuffer postings = LongBuffer.wrap(new long[] {
+            Postings.of(0, 0), Postings.of(0, 2), Postings.of(1, 0), Postings.of(2, 1), Postings.of(2, 3)
+        });
+
+        List<String> words = new ArrayList<>();
+        dictionary.toWords(postings, 1, 5).forEachRemaining(words::add);
+        assertEquals(List.of("a", "b", "c"), words);
+    }
+
+    @Test
+    public void should_map_bitmap_to_words_shortest_first() {
+        List<String> source = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            source.add("w" + i);
+        }
+        WordDictionary<String> dictionary = WordDictionary.of(source);
+
+        long[] marked = dictionary.newBitmap();
+        for (int id : new int[] {150, 3, 64, 63, 3}) {
+            marked[id >>> 6] |= 1L << id;
+        }
+
+        List<String> words = new ArrayList<>();
+        dictionary.toWords(marked).forEachRemaining(words::add);
+        assertEquals(List.of(dictionary.get(3), dictionary.get(63), dictionary.get(64), dictionary.get(150)), words);
+        assertFalse(dictionary.toWords(dictionary.newBitmap()).hasNext());
+    }
+
+    @Test
+    public void should_intern_equal_words_to_the_first_one() {
+        String first = new String("a");
+        String second = new String("a");
+        WordDictionary<String> dictionary = WordDictionary.of(List.of("b", first, second));
+
+        assertEquals(2, dictionary.size());
+        assertSame(first, dictionary.get(0));
+    }
+
+    @Test
+    public void should_skip_null_words() {
+        WordDictionary<String> dictionary = WordDictionary.of(Arrays.asList("a", null));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    public void should_check_case_of_word_range() {
+        String longWord = "Abc" + "d".repeat(70) + "Efg";
+        WordDictionary<String> dictionary = WordDictionary.of(List.of("AbcDef", longWord));
+
+        assertTrue(dictionary.isLowerCase(0, 1, 3));
+        assertFalse(dictionary.isLowerCase(0, 1, 4));
+        assertTrue(dictionary.isLowerCase(0, 4, 6));
+        assertTrue(dictionary.isLowerCase(0, 3, 3));
+
+        assertTrue(dictionary.isLowerCase(1, 1, 73));
+        assertFalse(dictionary.isLowerCase(1, 1, 74));
+        assertFalse(dictionary.isLowerCase(1, 0, 2));
+        assertTrue(dictionary.isLowerCase(1, 64, 73));
+        assertTrue(dictionary.isLowerCase(1, 74, 76));
+    }
+}
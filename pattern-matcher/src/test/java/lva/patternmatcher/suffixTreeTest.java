@@ -4,11 +4,15 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
+import static lva.patternmatcher.Utils.assertExactEstimate;
+import static lva.patternmatcher.Utils.assertSameAsBruteForce;
+import static lva.patternmatcher.Utils.bruteForceSearch;
+import static lva.patternmatcher.Utils.randomWords;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
-
 /**
  * @author vlitvinenko
  */
@@ -73,7 +77,6 @@ public class suffixTreeTest {
         assertEquals(expected, res);
     }
 
-
     @Test
     public void should_find_any_matches_of_substring_for_all_inputs() {
         SuffixTree<String> ast = new SuffixTree<>(List.of("ab", "ac"));
@@ -82,7 +85,6 @@ public class suffixTreeTest {
         assertEquals(resultSetOf("ac", 1, 2), ast.search("c"));
     }
 
-
     @Test
     public void should_find_all_substrings_non_overlapped() {
         SuffixTree<String> ast = new SuffixTree<>(List.of("abc"));
@@ -108,7 +110,6 @@ public class suffixTreeTest {
             .add("aaa", 1, 3);
         assertEquals(expected, ast.search("aa"));
 
-
         expected = new MatchingResultSet<String>()
             .add("aaa", 0, 1)
             .add("aaa", 1, 2)
@@ -133,6 +134,67 @@ public class suffixTreeTest {
         new SuffixTree<>(Arrays.asList("abc", null));
     }
 
+    @Test
+    public void should_find_suffixes_shared_with_previous_words() {
+        SuffixTree<String> ast = new SuffixTree<>(List.of("ab", "xab", "b", "xa"));
+
+        MatchingResultSet<String> expected = new MatchingResultSet<String>()
+            .add("ab", 1, 2)
+            .add("b", 0, 1)
+            .add("xab", 2, 3);
+        assertEquals(expected, ast.search("b"));
+
+        expected = new MatchingResultSet<String>()
+            .add("ab", 2, 3)
+            .add("b", 1, 2)
+            .add("xa", 2, 3)
+            .add("xab", 3, 4);
+        assertEquals(expected, ast.search(""));
+
+        assertEquals(resultSetOf("xa", 1, 3), ast.search("a "));
+    }
+
+    @Test
+    public void should_find_same_matches_as_brute_force_search() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, "aAbB", 200, 1, 21);
+
+        SuffixTree<String> ast = new SuffixTree<>(words);
+
+        for (String word : words) {
+            for (int from = 0; from < word.length(); from++) {
+                for (int to = from; to <= word.length(); to++) {
+                    String pattern = word.substring(from, to);
+                    assertEquals(pattern, bruteForceSearch(words, pattern), ast.search(pattern));
+                    assertEquals(pattern + " ", bruteForceSearch(words, pattern + " "), ast.search(pattern + " "));
+                }
+            }
+        }
+
+        List<String> patterns = randomWords(random, "aAbBc", 200, 1, 9);
+        assertSameAsBruteForce(words, ast, patterns);
+        assertExactEstimate(words, ast, patterns);
+    }
+
+    @Test
+    public void should_return_candidates_shortest_first() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("xabab", "cab", "ab", "bab", "x"));
+
+        assertEquals(List.of("ab", "bab", "cab", "xabab"), Utils.toList(tree.candidates("ab")));
+
+        assertEquals(5, Utils.toList(tree.candidates("")).size());
+        assertTrue(Utils.toList(tree.candidates("abc")).isEmpty());
+    }
+
+    @Test
+    public void should_estimate_number_of_occurrences() {
+        SuffixTree<String> tree = new SuffixTree<>(List.of("abab", "cab", "x"));
+
+        assertEquals(3, tree.estimate("ab"));
+        assertEquals(3, tree.estimate(""));
+        assertEquals(0, tree.estimate("abc"));
+    }
+
     private static MatchingResultSet<String> resultSetOf(String word, int from, int to) {
         return new MatchingResultSet<String>()
             .add(word, from, to);